@@ -87,3 +87,51 @@ ALTER TABLE mus_mobile_domain ADD CONSTRAINT mus_mobile_domain_app_id_fk FOREIGN
 ALTER TABLE mus_certificate ADD CONSTRAINT mus_certificate_mobile_domain_id_fk FOREIGN KEY (mobile_domain_id) REFERENCES mus_mobile_domain (id);
 
 -- Changeset mobile-utility-server/1.5.x/20230905-add-tag-1.5.0.xml::1::Lubos Racansky
+
+-- Changeset mobile-utility-server/1.11.x/20261018-add-cache-invalidation.xml::1::Wultra
+-- Create a new sequence mus_cache_invalidation_seq.
+CREATE SEQUENCE mus_cache_invalidation_seq START WITH 1 INCREMENT BY 50 CACHE 20;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-add-cache-invalidation.xml::2::Wultra
+-- Create a new table mus_cache_invalidation.
+CREATE TABLE mus_cache_invalidation (id NUMBER(38, 0) NOT NULL, node_id VARCHAR2(36) NOT NULL, topic VARCHAR2(10) NOT NULL, app_name VARCHAR2(255), timestamp_created TIMESTAMP NOT NULL, CONSTRAINT PK_MUS_CACHE_INVALIDATION PRIMARY KEY (id));
+
+COMMENT ON COLUMN mus_cache_invalidation.node_id IS 'Identifier of the node which made the change.';
+
+COMMENT ON COLUMN mus_cache_invalidation.topic IS 'APP, TEXT';
+
+COMMENT ON COLUMN mus_cache_invalidation.app_name IS 'Name of the changed application, null when all applications are affected.';
+
+-- Changeset mobile-utility-server/1.11.x/20261018-add-cache-invalidation.xml::3::Wultra
+-- Create a new index on mus_cache_invalidation(timestamp_created).
+CREATE INDEX mus_cache_invalidation_timestamp_idx ON mus_cache_invalidation(timestamp_created);
+
+-- Changeset mobile-utility-server/1.11.x/20261018-add-app-generation.xml::1::Wultra
+-- Create a new column generation bumped whenever the configuration of the application changes.
+ALTER TABLE mus_mobile_app ADD generation NUMBER(38, 0) DEFAULT 0 NOT NULL;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-pooled-sequences.xml::1::Wultra
+-- Increment the sequence mus_mobile_app_seq by 50 to allow pooled identifier allocation.
+ALTER SEQUENCE mus_mobile_app_seq INCREMENT BY 50;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-pooled-sequences.xml::2::Wultra
+-- Increment the sequence mus_mobile_domain_seq by 50 to allow pooled identifier allocation.
+ALTER SEQUENCE mus_mobile_domain_seq INCREMENT BY 50;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-pooled-sequences.xml::3::Wultra
+-- Increment the sequence mus_certificate_seq by 50 to allow pooled identifier allocation.
+ALTER SEQUENCE mus_certificate_seq INCREMENT BY 50;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-pooled-sequences.xml::4::Wultra
+-- Increment the sequence mus_mobile_app_version_seq by 50 to allow pooled identifier allocation.
+ALTER SEQUENCE mus_mobile_app_version_seq INCREMENT BY 50;
+
+-- Changeset mobile-utility-server/1.11.x/20261018-add-scheduler-lock.xml::1::Wultra
+-- Create a new table mus_scheduler_lock.
+CREATE TABLE mus_scheduler_lock (name VARCHAR2(64) NOT NULL, lock_until TIMESTAMP NOT NULL, locked_at TIMESTAMP NOT NULL, locked_by VARCHAR2(255) NOT NULL, CONSTRAINT PK_MUS_SCHEDULER_LOCK PRIMARY KEY (name));
+
+COMMENT ON COLUMN mus_scheduler_lock.lock_until IS 'Timestamp until which the lock is held.';
+
+COMMENT ON COLUMN mus_scheduler_lock.locked_at IS 'Timestamp when the lock was acquired.';
+
+COMMENT ON COLUMN mus_scheduler_lock.locked_by IS 'Host name of the node which acquired the lock.';
@@ -19,7 +19,6 @@ package com.wultra.app.mobileutilityserver;
 
 import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
 import io.getlime.security.powerauth.crypto.lib.util.KeyConvertor;
-import io.getlime.security.powerauth.crypto.lib.util.SignatureUtils;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
@@ -49,9 +48,4 @@ public class MobileUtilityServerApplication {
         return new KeyConvertor();
     }
 
-    @Bean
-    public SignatureUtils signatureUtils() {
-        return new SignatureUtils();
-    }
-
 }
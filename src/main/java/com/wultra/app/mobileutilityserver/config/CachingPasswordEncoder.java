@@ -0,0 +1,137 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Password encoder remembering successfully verified passwords for a short time, so a stateless client calling
+ * the admin API repeatedly does not pay the bcrypt cost on every request.
+ * <p>
+ * Entries are keyed by HMAC of the stored password hash and the presented password, with a random key generated
+ * on startup, so neither passwords nor reusable digests are kept in memory. The stored hash is part of the key,
+ * thus a password change in the database makes the previous entries unreachable immediately. The user record and
+ * authorities are still loaded on each request, so disabling a user or changing the authorities takes effect
+ * immediately as well. Only successful verifications are cached.
+ */
+@Slf4j
+final class CachingPasswordEncoder implements PasswordEncoder {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private final PasswordEncoder delegate;
+    private final long ttlMillis;
+    private final int maxSize;
+    private final SecretKeySpec key;
+
+    /**
+     * Expiration timestamps of the verified passwords by their keys.
+     */
+    private final Map<String, Long> verified = new ConcurrentHashMap<>();
+
+    /**
+     * Create the encoder.
+     *
+     * @param delegate Encoder verifying the passwords not found in the cache.
+     * @param ttl How long a verified password is remembered.
+     * @param maxSize Maximum number of remembered passwords.
+     */
+    CachingPasswordEncoder(final PasswordEncoder delegate, final Duration ttl, final int maxSize) {
+        this.delegate = delegate;
+        this.ttlMillis = ttl.toMillis();
+        this.maxSize = maxSize;
+        final byte[] keyBytes = new byte[32];
+        new SecureRandom().nextBytes(keyBytes);
+        this.key = new SecretKeySpec(keyBytes, HMAC_ALGORITHM);
+    }
+
+    @Override
+    public String encode(final CharSequence rawPassword) {
+        return delegate.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return delegate.matches(rawPassword, encodedPassword);
+        }
+
+        final String cacheKey = cacheKey(rawPassword, encodedPassword);
+        final long now = System.currentTimeMillis();
+        final Long validUntil = verified.get(cacheKey);
+        if (validUntil != null) {
+            if (now < validUntil) {
+                return true;
+            }
+            verified.remove(cacheKey, validUntil);
+        }
+
+        if (!delegate.matches(rawPassword, encodedPassword)) {
+            return false;
+        }
+        if (verified.size() >= maxSize) {
+            evict(now);
+        }
+        verified.put(cacheKey, now + ttlMillis);
+        return true;
+    }
+
+    @Override
+    public boolean upgradeEncoding(final String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    /**
+     * Remove the expired entries, or all of them if the cache is still full.
+     */
+    private void evict(final long now) {
+        verified.values().removeIf(it -> it <= now);
+        if (verified.size() >= maxSize) {
+            logger.debug("Verified password cache is full, clearing {} entries", verified.size());
+            verified.clear();
+        }
+    }
+
+    private String cacheKey(final CharSequence rawPassword, final String encodedPassword) {
+        final byte[] encoded = encodedPassword.getBytes(StandardCharsets.UTF_8);
+        final byte[] raw = rawPassword.toString().getBytes(StandardCharsets.UTF_8);
+        try {
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            // Length prefix keeps the boundary between the hash and the password unambiguous
+            mac.update(ByteBuffer.allocate(Integer.BYTES).putInt(encoded.length).array());
+            mac.update(encoded);
+            return Base64.getEncoder().encodeToString(mac.doFinal(raw));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute " + HMAC_ALGORITHM, e);
+        }
+    }
+}
@@ -18,6 +18,8 @@
 
 package com.wultra.app.mobileutilityserver.config;
 
+import com.wultra.app.mobileutilityserver.rest.filter.AdminTokenFilter;
+import com.wultra.app.mobileutilityserver.rest.service.AdminTokenService;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -33,9 +35,11 @@ import org.springframework.security.crypto.password.MessageDigestPasswordEncoder
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.provisioning.JdbcUserDetailsManager;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
 
 import javax.sql.DataSource;
 import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Map;
 import java.util.Set;
 
@@ -62,6 +66,12 @@ public class SecurityConfig {
     @Value("${mobile-utility-server.security.auth.bcrypt.cycles}")
     private int bcryptCycles;
 
+    @Value("${mobile-utility-server.security.auth.cache.ttl}")
+    private Duration cacheTtl;
+
+    @Value("${mobile-utility-server.security.auth.cache.max-size}")
+    private int cacheMaxSize;
+
     @Bean
     public UserDetailsService userDetailsService(DataSource dataSource) {
         final JdbcUserDetailsManager manager = new JdbcUserDetailsManager(dataSource);
@@ -80,6 +90,7 @@ public class SecurityConfig {
      * algorithm does not cause security issues. Bcrypt is used as default in case no prefix is specified.
      * See the following URL for constant details:
      * <a href="https://docs.spring.io/spring-security/site/docs/current/api/org/springframework/security/crypto/factory/PasswordEncoderFactories.html#createDelegatingPasswordEncoder()">PasswordEncoderFactories.createDelegatingPasswordEncoder()</a>
+     * Verified passwords are remembered for the configured time, see {@link CachingPasswordEncoder}.
      * @return Delegating password encoder.
      */
     @Bean
@@ -96,18 +107,26 @@ public class SecurityConfig {
         );
         final DelegatingPasswordEncoder passwordEncoder = new DelegatingPasswordEncoder(algorithm, encoders);
         passwordEncoder.setDefaultPasswordEncoderForMatches(bcrypt); // try using bcrypt as default
-        return passwordEncoder;
+        if (cacheTtl.isZero() || cacheMaxSize <= 0) {
+            return passwordEncoder;
+        }
+        return new CachingPasswordEncoder(passwordEncoder, cacheTtl, cacheMaxSize);
     }
 
     /**
-     * Configure security filter chain.
+     * Configure security filter chain. Bearer tokens are accepted besides the HTTP Basic authentication if enabled,
+     * see {@link AdminTokenService}.
      *
      * @param http HTTP configuration.
+     * @param adminTokenService Admin token service.
      * @return Security filter chain.
      * @throws Exception In case a configuration error occurs.
      */
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, AdminTokenService adminTokenService) throws Exception {
+        if (adminTokenService.isEnabled()) {
+            http.addFilterBefore(new AdminTokenFilter(adminTokenService), BasicAuthenticationFilter.class);
+        }
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(authorize -> authorize
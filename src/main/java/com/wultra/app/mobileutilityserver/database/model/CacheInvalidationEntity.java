@@ -0,0 +1,66 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.database.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a change of cached data, used to invalidate caches of the other nodes of a cluster.
+ */
+@Entity
+@Table(name = "mus_cache_invalidation")
+@Getter
+@Setter
+@ToString
+public class CacheInvalidationEntity {
+
+    @Id
+    @SequenceGenerator(name = "mus_cache_invalidation", sequenceName = "mus_cache_invalidation_seq", allocationSize = 50)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mus_cache_invalidation")
+    private Long id;
+
+    /**
+     * Identifier of the node which made the change.
+     */
+    @Column(name = "node_id", nullable = false)
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "topic", nullable = false)
+    private Topic topic;
+
+    /**
+     * Name of the changed application, {@code null} when all applications are affected.
+     */
+    @Column(name = "app_name")
+    private String appName;
+
+    @Column(name = "timestamp_created", nullable = false)
+    private LocalDateTime timestampCreated;
+
+    public enum Topic {
+        APP,
+        TEXT
+    }
+}
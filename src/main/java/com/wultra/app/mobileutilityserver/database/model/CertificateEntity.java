@@ -32,7 +32,7 @@ public class CertificateEntity {
 
     @Id
     @Column(name = "id")
-    @SequenceGenerator(name = "mus_certificate", sequenceName = "mus_certificate_seq", allocationSize = 1)
+    @SequenceGenerator(name = "mus_certificate", sequenceName = "mus_certificate_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mus_certificate")
     private Long id;
 
@@ -22,6 +22,7 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -39,7 +40,7 @@ public class MobileAppEntity {
 
     @Id
     @Column(name = "id")
-    @SequenceGenerator(name = "mus_mobile_app", sequenceName = "mus_mobile_app_seq", allocationSize = 1)
+    @SequenceGenerator(name = "mus_mobile_app", sequenceName = "mus_mobile_app_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mus_mobile_app")
     private Long id;
 
@@ -55,6 +56,14 @@ public class MobileAppEntity {
     @Column(name = "sign_public_key")
     private String signingPublicKey;
 
+    /**
+     * Generation of the application configuration, bumped by {@link com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository}
+     * whenever certificates, domains, versions or texts change.
+     */
+    @ColumnDefault("0")
+    @Column(name = "generation", nullable = false, updatable = false)
+    private long generation;
+
     @ToString.Exclude
     @OneToMany(mappedBy = "app", cascade = CascadeType.ALL, orphanRemoval=true)
     private List<MobileDomainEntity> domains = new ArrayList<>();
@@ -36,7 +36,7 @@ import lombok.ToString;
 public class MobileAppVersionEntity {
 
     @Id
-    @SequenceGenerator(name = "mus_mobile_app_version", sequenceName = "mus_mobile_app_version_seq", allocationSize = 1)
+    @SequenceGenerator(name = "mus_mobile_app_version", sequenceName = "mus_mobile_app_version_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mus_mobile_app_version")
     private Long id;
 
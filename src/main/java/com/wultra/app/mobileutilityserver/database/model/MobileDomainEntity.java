@@ -35,7 +35,7 @@ public class MobileDomainEntity {
 
     @Id
     @Column(name = "id")
-    @SequenceGenerator(name = "mus_mobile_domain", sequenceName = "mus_mobile_domain_seq", allocationSize = 1)
+    @SequenceGenerator(name = "mus_mobile_domain", sequenceName = "mus_mobile_domain_seq", allocationSize = 50)
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "mus_mobile_domain")
     private Long id;
 
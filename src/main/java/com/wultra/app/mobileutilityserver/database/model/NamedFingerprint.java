@@ -0,0 +1,29 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.database.model;
+
+/**
+ * Projection of a certificate fingerprint together with the name of its domain.
+ *
+ * @param domain Domain name.
+ * @param fingerprint Certificate fingerprint.
+ * @param expires Unix timestamp of the certificate expiration in seconds.
+ */
+public record NamedFingerprint(String domain, String fingerprint, Long expires) {
+}
@@ -0,0 +1,56 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.database.model;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDateTime;
+
+/**
+ * Entity representing a lock of a scheduled job, so that the job runs on a single node of a cluster.
+ */
+@Entity
+@Table(name = "mus_scheduler_lock")
+@Getter
+@Setter
+@ToString
+public class SchedulerLockEntity {
+
+    @Id
+    @Column(name = "name", length = 64)
+    private String name;
+
+    /**
+     * Timestamp until which the lock is held.
+     */
+    @Column(name = "lock_until", nullable = false)
+    private LocalDateTime lockUntil;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    /**
+     * Host name of the node which acquired the lock.
+     */
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+}
@@ -0,0 +1,55 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.database.repo;
+
+import com.wultra.app.mobileutilityserver.database.model.CacheInvalidationEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Repository for {@link CacheInvalidationEntity}.
+ */
+@Repository
+public interface CacheInvalidationRepository extends CrudRepository<CacheInvalidationEntity, Long> {
+
+    /**
+     * Get the changes created after the given timestamp.
+     * @param timestampCreated Timestamp.
+     * @return List of changes ordered by ID.
+     */
+    List<CacheInvalidationEntity> findAllByTimestampCreatedAfterOrderById(LocalDateTime timestampCreated);
+
+    /**
+     * Delete the changes created before the given timestamp in a single statement.
+     * @param timestampCreated Timestamp.
+     * @return Number of deleted changes.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CacheInvalidationEntity c WHERE c.timestampCreated < :timestampCreated")
+    int deleteAllByTimestampCreatedBefore(@Param("timestampCreated") LocalDateTime timestampCreated);
+
+}
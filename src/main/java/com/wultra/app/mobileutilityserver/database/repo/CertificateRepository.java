@@ -19,11 +19,16 @@
 package com.wultra.app.mobileutilityserver.database.repo;
 
 import com.wultra.app.mobileutilityserver.database.model.CertificateEntity;
+import com.wultra.app.mobileutilityserver.database.model.NamedFingerprint;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -35,16 +40,38 @@ import java.util.List;
 public interface CertificateRepository extends CrudRepository<CertificateEntity, Long> {
 
     /**
-     * Get the collection of SSL certificates for a given app.
+     * Get the collection of SSL certificate fingerprints named by their domain for a given app, in a single statement.
+     * Certificates that expired before the given timestamp are skipped. The fingerprints are sorted by the domain and
+     * the fingerprint, so the serialized list and its entity tag do not depend on the order of rows in the database.
      * @param appName App name.
-     * @return List of SSL certificates.
+     * @param expires Unix timestamp in seconds.
+     * @return List of SSL certificate fingerprints with their domain names.
      */
-    @Query("SELECT s FROM CertificateEntity s WHERE s.domain.app.name = :appName")
-    List<CertificateEntity> findAllByAppName(@Param("appName") String appName);
+    @Query("SELECT new com.wultra.app.mobileutilityserver.database.model.NamedFingerprint(d.domain, s.fingerprint, s.expires) " +
+            "FROM CertificateEntity s JOIN s.domain d JOIN d.app a WHERE a.name = :appName AND s.expires >= :expires " +
+            "ORDER BY d.domain, s.fingerprint")
+    List<NamedFingerprint> findAllFingerprintsByAppNameAndExpiresNotBefore(@Param("appName") String appName, @Param("expires") long expires);
 
     @Query("SELECT s FROM CertificateEntity s WHERE s.domain.app.name = :appName AND s.domain.domain = :domain")
     List<CertificateEntity> findFirstByAppNameAndDomain(@Param("appName") String appName, @Param("domain") String domain);
 
-    void deleteAllByExpiresBefore(Long expires);
+    /**
+     * Get IDs of the certificates that expired before the given timestamp.
+     * @param expires Unix timestamp in seconds.
+     * @param pageable Page to fetch, used to bound the number of IDs.
+     * @return List of certificate IDs.
+     */
+    @Query("SELECT s.id FROM CertificateEntity s WHERE s.expires < :expires ORDER BY s.id")
+    List<Long> findIdsByExpiresBefore(@Param("expires") long expires, Pageable pageable);
+
+    /**
+     * Delete certificates with the given IDs in a single statement.
+     * @param ids Certificate IDs.
+     * @return Number of deleted certificates.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM CertificateEntity s WHERE s.id IN :ids")
+    int deleteAllByIdIn(@Param("ids") Collection<Long> ids);
 
 }
@@ -19,7 +19,13 @@
 package com.wultra.app.mobileutilityserver.database.repo;
 
 import com.wultra.app.mobileutilityserver.database.model.MobileAppEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository class for accessing the mobile application metadata in the database.
@@ -42,4 +48,28 @@ public interface MobileAppRepository extends CrudRepository<MobileAppEntity, Lon
      */
     MobileAppEntity findFirstByName(String name);
 
+    /**
+     * Find applications by the application names.
+     * @param names App names.
+     * @return Entities representing the applications.
+     */
+    List<MobileAppEntity> findAllByNameIn(Collection<String> names);
+
+    /**
+     * Increment the configuration generation of the application by the application name.
+     * @param name App name.
+     * @return Number of updated applications.
+     */
+    @Modifying
+    @Query("UPDATE MobileAppEntity a SET a.generation = a.generation + 1 WHERE a.name = :name")
+    int incrementGenerationByName(@Param("name") String name);
+
+    /**
+     * Increment the configuration generation of all applications.
+     * @return Number of updated applications.
+     */
+    @Modifying
+    @Query("UPDATE MobileAppEntity a SET a.generation = a.generation + 1")
+    int incrementGeneration();
+
 }
@@ -19,8 +19,16 @@
 package com.wultra.app.mobileutilityserver.database.repo;
 
 import com.wultra.app.mobileutilityserver.database.model.MobileDomainEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository for mobile app domains.
@@ -44,4 +52,55 @@ public interface MobileDomainRepository extends CrudRepository<MobileDomainEntit
      * @param domain Domain name.
      */
     void deleteByAppNameAndDomain(String appName, String domain);
+
+    /**
+     * Get IDs of the domains without any certificate.
+     * @param pageable Page to fetch, used to bound the number of IDs.
+     * @return List of domain IDs.
+     */
+    @Query("SELECT d.id FROM MobileDomainEntity d WHERE d.certificates IS EMPTY ORDER BY d.id")
+    List<Long> findIdsWithoutCertificates(Pageable pageable);
+
+    /**
+     * Delete domains with the given IDs in a single statement, unless a certificate was added to them meanwhile.
+     * @param ids Domain IDs.
+     * @return Number of deleted domains.
+     */
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM MobileDomainEntity d WHERE d.id IN :ids AND d.certificates IS EMPTY")
+    int deleteAllWithoutCertificatesByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find all domains with fingerprints of their certificates, in a single statement. There is a row for each
+     * certificate, and a row with {@code null} fingerprint for a domain without certificates.
+     * @return Domains with certificate fingerprints.
+     */
+    @Query("SELECT a.name AS appName, d.domain AS domain, c.fingerprint AS fingerprint " +
+            "FROM MobileDomainEntity d JOIN d.app a LEFT JOIN d.certificates c")
+    List<DomainFingerprint> findAllDomainFingerprints();
+
+    /**
+     * Domain with a certificate fingerprint.
+     */
+    interface DomainFingerprint {
+
+        /**
+         * Get app name.
+         * @return App name.
+         */
+        String getAppName();
+
+        /**
+         * Get domain name.
+         * @return Domain name.
+         */
+        String getDomain();
+
+        /**
+         * Get certificate fingerprint.
+         * @return Certificate fingerprint, {@code null} for a domain without certificates.
+         */
+        String getFingerprint();
+    }
 }
@@ -0,0 +1,79 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.database.repo;
+
+import com.wultra.app.mobileutilityserver.database.model.SchedulerLockEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * Repository for {@link SchedulerLockEntity}.
+ */
+@Repository
+public interface SchedulerLockRepository extends CrudRepository<SchedulerLockEntity, String> {
+
+    /**
+     * Acquire an existing lock which is not held, in a single statement.
+     * @param name Lock name.
+     * @param lockUntil Timestamp until which the lock is held.
+     * @param lockedAt Current timestamp.
+     * @param lockedBy Host name of the node.
+     * @return Number of acquired locks, zero if the lock does not exist or is held.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE SchedulerLockEntity l SET l.lockUntil = :lockUntil, l.lockedAt = :lockedAt, l.lockedBy = :lockedBy " +
+            "WHERE l.name = :name AND l.lockUntil <= :lockedAt")
+    int lock(@Param("name") String name, @Param("lockUntil") LocalDateTime lockUntil, @Param("lockedAt") LocalDateTime lockedAt, @Param("lockedBy") String lockedBy);
+
+    /**
+     * Create a held lock. Fails with a constraint violation when the lock exists already, e.g. when created
+     * by another node meanwhile.
+     * @param name Lock name.
+     * @param lockUntil Timestamp until which the lock is held.
+     * @param lockedAt Current timestamp.
+     * @param lockedBy Host name of the node.
+     * @return Number of created locks.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query(value = "INSERT INTO mus_scheduler_lock (name, lock_until, locked_at, locked_by) VALUES (:name, :lockUntil, :lockedAt, :lockedBy)", nativeQuery = true)
+    int insert(@Param("name") String name, @Param("lockUntil") LocalDateTime lockUntil, @Param("lockedAt") LocalDateTime lockedAt, @Param("lockedBy") String lockedBy);
+
+    /**
+     * Shorten the lock acquired at the given timestamp by the given node.
+     * @param name Lock name.
+     * @param lockUntil Timestamp until which the lock is held.
+     * @param lockedAt Timestamp when the lock was acquired.
+     * @param lockedBy Host name of the node.
+     * @return Number of updated locks, zero if the lock has been acquired by another node meanwhile.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE SchedulerLockEntity l SET l.lockUntil = :lockUntil WHERE l.name = :name AND l.lockedAt = :lockedAt AND l.lockedBy = :lockedBy")
+    int unlock(@Param("name") String name, @Param("lockUntil") LocalDateTime lockUntil, @Param("lockedAt") LocalDateTime lockedAt, @Param("lockedBy") String lockedBy);
+
+}
@@ -24,12 +24,18 @@ import com.wultra.app.mobileutilityserver.rest.http.QueryParams;
 import com.wultra.app.mobileutilityserver.rest.model.request.*;
 import com.wultra.app.mobileutilityserver.rest.model.response.*;
 import com.wultra.app.mobileutilityserver.rest.service.AdminService;
+import com.wultra.app.mobileutilityserver.rest.service.AdminTokenService;
+import com.wultra.app.mobileutilityserver.rest.service.CertificateAutoFetchService;
+import com.wultra.app.mobileutilityserver.rest.service.CertificateCleanupService;
+import com.wultra.app.mobileutilityserver.rest.service.ImportService;
+import io.getlime.core.rest.model.base.response.ObjectResponse;
 import io.getlime.core.rest.model.base.response.Response;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
@@ -51,12 +57,27 @@ public class AdminController {
     private static final String TAG_ADMIN_APPLICATION_CERTIFICATE = "Admin Application Certificate";
     private static final String TAG_ADMIN_APPLICATION_VERSION = "Admin Application Version";
     private static final String TAG_ADMIN_TEXT = "Admin Text";
+    private static final String TAG_ADMIN_TOKEN = "Admin Token";
 
     private final AdminService adminService;
+    private final ImportService importService;
+    private final CertificateAutoFetchService certificateAutoFetchService;
+    private final CertificateCleanupService certificateCleanupService;
+    private final AdminTokenService adminTokenService;
 
     @Autowired
-    public AdminController(AdminService adminService) {
+    public AdminController(AdminService adminService, ImportService importService, CertificateAutoFetchService certificateAutoFetchService, CertificateCleanupService certificateCleanupService, AdminTokenService adminTokenService) {
         this.adminService = adminService;
+        this.importService = importService;
+        this.certificateAutoFetchService = certificateAutoFetchService;
+        this.certificateCleanupService = certificateCleanupService;
+        this.adminTokenService = adminTokenService;
+    }
+
+    @Tag(name = TAG_ADMIN_TOKEN)
+    @PostMapping("token")
+    public AdminTokenResponse createToken(Authentication authentication) throws AppException {
+        return adminTokenService.issue(authentication);
     }
 
     @Tag(name = TAG_ADMIN_APPLICATION)
@@ -65,6 +86,12 @@ public class AdminController {
         return adminService.createApplication(request);
     }
 
+    @Tag(name = TAG_ADMIN_APPLICATION)
+    @PostMapping("import")
+    public ImportResponse importApplications(@Valid @RequestBody ImportRequest request) throws AppException {
+        return importService.importApplications(request);
+    }
+
     @Tag(name = TAG_ADMIN_APPLICATION)
     @GetMapping("apps")
     public ApplicationListResponse applicationList() {
@@ -83,6 +110,12 @@ public class AdminController {
         return adminService.createApplicationCertificate(name, request);
     }
 
+    @Tag(name = TAG_ADMIN_APPLICATION_CERTIFICATE)
+    @PostMapping("apps/{name}/certificates/auto/batch")
+    public CertificateListResponse createApplicationCertificatesAuto(@PathVariable("name") String name, @Valid @RequestBody CreateApplicationCertificatesAutoRequest request) throws AppNotFoundException, IOException, CertificateEncodingException, NoSuchAlgorithmException {
+        return certificateAutoFetchService.createApplicationCertificates(name, request);
+    }
+
     @Tag(name = TAG_ADMIN_APPLICATION_CERTIFICATE)
     @PostMapping("apps/{name}/certificates/pem")
     public CertificateDetailResponse createApplicationCertificatePem(@PathVariable("name") String name, @Valid @RequestBody CreateApplicationCertificatePemRequest request) throws AppNotFoundException, IOException, NoSuchAlgorithmException {
@@ -105,9 +138,11 @@ public class AdminController {
 
     @Tag(name = TAG_ADMIN_APPLICATION_CERTIFICATE)
     @DeleteMapping("certificates/expired")
-    public Response deleteExpiredCertificates() {
-        adminService.deleteExpiredCertificates();
-        return new Response();
+    public ObjectResponse<CertificateCleanupResponse> deleteExpiredCertificates(@RequestParam(value = "removeEmptyDomains", required = false) Boolean removeEmptyDomains) {
+        if (removeEmptyDomains == null) {
+            return new ObjectResponse<>(certificateCleanupService.deleteExpiredCertificates());
+        }
+        return new ObjectResponse<>(certificateCleanupService.deleteExpiredCertificates(removeEmptyDomains));
     }
 
     @Tag(name = TAG_ADMIN_APPLICATION_VERSION)
@@ -22,27 +22,34 @@ import com.wultra.app.mobileutilityserver.rest.errorhandling.InvalidChallengeHea
 import com.wultra.app.mobileutilityserver.rest.errorhandling.PublicKeyNotFoundException;
 import com.wultra.app.mobileutilityserver.rest.http.HttpHeaders;
 import com.wultra.app.mobileutilityserver.rest.http.QueryParams;
-import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
 import com.wultra.app.mobileutilityserver.rest.model.request.RegexpPatternConstants;
 import com.wultra.app.mobileutilityserver.rest.model.response.AppInitResponse;
 import com.wultra.app.mobileutilityserver.rest.model.response.PublicKeyResponse;
 import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
-import com.wultra.app.mobileutilityserver.rest.service.CertificateFingerprintService;
+import com.wultra.app.mobileutilityserver.rest.service.AppInitMetrics;
+import com.wultra.app.mobileutilityserver.rest.service.AppInitResponseCache;
 import com.wultra.app.mobileutilityserver.rest.service.MobileAppService;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppSnapshot;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppSnapshotService;
 import com.wultra.app.mobileutilityserver.rest.service.VerifyVersionRequest;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.enums.ParameterIn;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.constraints.Pattern;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.util.StringUtils;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
 
 /**
  * Controller with generic information needed for app initialization.
@@ -56,18 +63,24 @@ import java.util.List;
 @Slf4j
 public class AppInitializationController {
 
-    private final CertificateFingerprintService certificateFingerprintService;
+    private final MobileAppSnapshotService mobileAppSnapshotService;
     private final MobileAppService mobileAppService;
+    private final AppInitResponseCache appInitResponseCache;
+    private final AppInitMetrics appInitMetrics;
     private final boolean versionVerificationEnabled;
 
     @Autowired
     public AppInitializationController(
-            final CertificateFingerprintService certificateFingerprintService,
+            final MobileAppSnapshotService mobileAppSnapshotService,
             final MobileAppService mobileAppService,
+            final AppInitResponseCache appInitResponseCache,
+            final AppInitMetrics appInitMetrics,
             @Value("${mobile-utility-server.features.version-verification.enabled}") final boolean versionVerificationEnabled) {
 
-        this.certificateFingerprintService = certificateFingerprintService;
+        this.mobileAppSnapshotService = mobileAppSnapshotService;
         this.mobileAppService = mobileAppService;
+        this.appInitResponseCache = appInitResponseCache;
+        this.appInitMetrics = appInitMetrics;
         this.versionVerificationEnabled = versionVerificationEnabled;
     }
 
@@ -92,7 +105,21 @@ public class AppInitializationController {
             schema = @Schema(type = "string", pattern = "^\\d+\\.\\d+\\.\\d+(-.*)?|\\d+$"),
             example = "14.5.1"
     )
-    public AppInitResponse appInit(
+    @Parameter(
+            name = org.springframework.http.HttpHeaders.IF_NONE_MATCH,
+            description = "Entity tag of a previous response, the response is not modified if the tag still matches.",
+            in = ParameterIn.HEADER,
+            schema = @Schema(type = "string")
+    )
+    @ApiResponse(
+            responseCode = "200",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = AppInitResponse.class))
+    )
+    @ApiResponse(
+            responseCode = "304",
+            description = "Not modified, the signature contains the challenge and the entity tag."
+    )
+    public ResponseEntity<byte[]> appInit(
             @RequestParam(QueryParams.QUERY_PARAM_APP_NAME) String applicationName,
             @Pattern(regexp = RegexpPatternConstants.SEMVER_2_0, message = "Application version must comply SemVer 2.0")
             @RequestParam(value = QueryParams.QUERY_PARAM_APP_VERSION, required = false) String applicationVersion,
@@ -108,14 +135,18 @@ public class AppInitializationController {
         }
 
         // Check if an app exists
-        final boolean appExists = mobileAppService.appExists(applicationName);
-        if (!appExists) {
+        long start = System.nanoTime();
+        final Optional<MobileAppSnapshot> found = mobileAppSnapshotService.find(applicationName);
+        if (found.isEmpty()) {
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_APP_LOOKUP, AppInitMetrics.UNKNOWN_APP, AppInitMetrics.OUTCOME_NOT_FOUND, start);
             throw new AppNotFoundException(applicationName);
         }
+        final MobileAppSnapshot app = found.get();
+        final String appTag = appInitMetrics.appTag(app.getName());
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_APP_LOOKUP, appTag, AppInitMetrics.OUTCOME_FOUND, start);
 
-        // Find the fingerprints
-        final List<CertificateFingerprint> fingerprints = certificateFingerprintService.findCertificateFingerprintsByAppName(applicationName);
-
+        start = System.nanoTime();
+        final VerifyVersionResult verifyVersionResult;
         if (shouldVerifyVersion(applicationVersion, systemVersion, platform)) {
             final VerifyVersionRequest verifyVersionRequest = VerifyVersionRequest.builder()
                     .applicationName(applicationName)
@@ -123,13 +154,26 @@ public class AppInitializationController {
                     .systemVersion(systemVersion)
                     .platform(convert(platform))
                     .build();
-            final VerifyVersionResult verifyVersionResult = mobileAppService.verifyVersion(verifyVersionRequest);
-
-            return new AppInitResponse(fingerprints, verifyVersionResult);
+            verifyVersionResult = mobileAppService.verifyVersion(app, verifyVersionRequest);
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_VERSION_VERIFICATION, appTag, verifyVersionResult.getUpdate().name().toLowerCase(Locale.ROOT), start);
         } else {
             logger.debug("Context for verifying version not provided for application name: {}", applicationName);
-            return new AppInitResponse(fingerprints, null);
+            verifyVersionResult = null;
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_VERSION_VERIFICATION, appTag, AppInitMetrics.OUTCOME_SKIPPED, start);
         }
+
+        // Body is pre-serialized, only the timestamp differs between requests.
+        // Spring answers 304 Not Modified without the body when the entity tag matches If-None-Match.
+        start = System.nanoTime();
+        final String etag = appInitResponseCache.etag(app, verifyVersionResult);
+        final byte[] body = appInitResponseCache.serialize(app, verifyVersionResult);
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_SERIALIZATION, appTag, AppInitMetrics.OUTCOME_OK, start);
+        appInitMetrics.recordResponseSize(appTag, body.length);
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(etag)
+                .body(body);
     }
 
     private boolean shouldVerifyVersion(final String applicationVersion, final String systemVersion, final Platform platform) {
@@ -19,9 +19,10 @@ package com.wultra.app.mobileutilityserver.rest.filter;
 
 import com.wultra.app.mobileutilityserver.rest.http.HttpHeaders;
 import com.wultra.app.mobileutilityserver.rest.http.QueryParams;
-import com.wultra.app.mobileutilityserver.rest.service.MobileAppService;
+import com.wultra.app.mobileutilityserver.rest.service.AppInitMetrics;
 import com.wultra.app.mobileutilityserver.rest.service.CryptographicOperationsService;
-import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppSnapshot;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppSnapshotService;
 import io.getlime.security.powerauth.crypto.lib.model.exception.GenericCryptoException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -34,13 +35,23 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.util.ContentCachingResponseWrapper;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
 import java.security.InvalidKeyException;
-import java.security.spec.InvalidKeySpecException;
+import java.security.PrivateKey;
+import java.util.Objects;
+import java.util.Optional;
 
 /**
  * Filter that signs the response data with a signature that depends on the received challenge.
+ * <p>
+ * Only app initialization resources requested with a challenge header are signed. The response body is buffered once,
+ * because the signature header must be sent before the body, and fed to the signature incrementally. A response
+ * {@code 304 Not Modified} has no body, its signature contains the entity tag instead, so the client may trust
+ * the previously received body.
  *
  * @author Petr Dvorak, petr@wultra.com
  */
@@ -48,47 +59,75 @@ import java.security.spec.InvalidKeySpecException;
 @Slf4j
 public class ResponseSignFilter extends OncePerRequestFilter {
 
-    private final MobileAppService mobileAppService;
+    private static final String SIGNED_PATH = "/app/init";
+
+    private final MobileAppSnapshotService mobileAppSnapshotService;
 
     private final CryptographicOperationsService cryptographicOperationsService;
 
+    private final AppInitMetrics appInitMetrics;
+
     @Autowired
-    public ResponseSignFilter(MobileAppService mobileAppService, CryptographicOperationsService cryptographicOperationsService) {
-        this.mobileAppService = mobileAppService;
+    public ResponseSignFilter(MobileAppSnapshotService mobileAppSnapshotService, CryptographicOperationsService cryptographicOperationsService, AppInitMetrics appInitMetrics) {
+        this.mobileAppSnapshotService = mobileAppSnapshotService;
         this.cryptographicOperationsService = cryptographicOperationsService;
+        this.appInitMetrics = appInitMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        return request.getHeader(HttpHeaders.REQUEST_CHALLENGE) == null
+                || !isSignedPath(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    /**
+     * Whether the path is the app initialization resource or its sub-resource, not just sharing the prefix.
+     */
+    private static boolean isSignedPath(final String path) {
+        return path.equals(SIGNED_PATH) || path.startsWith(SIGNED_PATH + '/');
     }
 
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response, @NonNull FilterChain chain) throws ServletException, IOException {
-        final ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
-        chain.doFilter(request, responseWrapper);
         final String requestChallenge = request.getHeader(HttpHeaders.REQUEST_CHALLENGE);
-        if (HttpHeaders.validChallengeHeader(requestChallenge)) {
-            // Prepare the signature base data
-            final byte[] cb = requestChallenge.getBytes(StandardCharsets.UTF_8);
-            final byte[] rb = responseWrapper.getContentAsByteArray();
+        if (!HttpHeaders.validChallengeHeader(requestChallenge)) {
+            chain.doFilter(request, response);
+            return;
+        }
 
-            final byte[] signatureBase = new byte[cb.length + rb.length + 1];
-            System.arraycopy(cb, 0, signatureBase, 0, cb.length);
-            signatureBase[cb.length] = '&';
-            System.arraycopy(rb, 0, signatureBase, cb.length + 1, rb.length);
+        // Fetch the app private key, check if such app exists
+        final String appName = request.getParameter(QueryParams.QUERY_PARAM_APP_NAME);
+        final Optional<MobileAppSnapshot> app = mobileAppSnapshotService.find(appName);
+        if (app.isEmpty()) {
+            chain.doFilter(request, response);
+            return;
+        }
 
-            // Fetch the app private key, check if such app exists
-            final String appName = request.getParameter(QueryParams.QUERY_PARAM_APP_NAME);
-            final String privateKeyBase64 = mobileAppService.privateKey(appName);
+        final ContentCachingResponseWrapper responseWrapper = new ContentCachingResponseWrapper(response);
+        chain.doFilter(request, responseWrapper);
+        final String appTag = appInitMetrics.appTag(app.get().getName());
+        final long start = System.nanoTime();
+        try {
+            final PrivateKey privateKey = app.get().getSigningPrivateKey();
+            if (privateKey == null) {
+                throw new InvalidKeyException("Missing or invalid signing private key");
+            }
 
-            if (privateKeyBase64 != null) {
-                try {
-                    // Compute the signature
-                    final String ecdsaSignature = cryptographicOperationsService.computeECDSASignature(signatureBase, privateKeyBase64);
+            // Compute the signature of the challenge, separator and response body or entity tag if not modified
+            final byte[] challengePrefix = (requestChallenge + '&').getBytes(StandardCharsets.UTF_8);
+            final InputStream content = responseWrapper.getStatus() == HttpServletResponse.SC_NOT_MODIFIED
+                    ? new ByteArrayInputStream(Objects.toString(responseWrapper.getHeader(org.springframework.http.HttpHeaders.ETAG), "").getBytes(StandardCharsets.UTF_8))
+                    : responseWrapper.getContentInputStream();
+            final InputStream signatureBase = new SequenceInputStream(new ByteArrayInputStream(challengePrefix), content);
+            final String ecdsaSignature = cryptographicOperationsService.computeECDSASignature(signatureBase, privateKey);
 
-                    // Set the request header
-                    response.setHeader(HttpHeaders.RESPONSE_SIGNATURE, ecdsaSignature);
-                } catch (InvalidKeySpecException | CryptoProviderException | InvalidKeyException | GenericCryptoException ex) {
-                    logger.error("Unable to sign response, appName: {}", appName, ex);
-                    throw new IOException("Unable to sign response, appName: " + appName, ex);
-                }
-            }
+            // Set the request header
+            response.setHeader(HttpHeaders.RESPONSE_SIGNATURE, ecdsaSignature);
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_SIGNATURE, appTag, AppInitMetrics.OUTCOME_OK, start);
+        } catch (InvalidKeyException | GenericCryptoException ex) {
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_SIGNATURE, appTag, AppInitMetrics.OUTCOME_FAILED, start);
+            logger.error("Unable to sign response, appName: {}", appName, ex);
+            throw new IOException("Unable to sign response, appName: " + appName, ex);
         }
         responseWrapper.copyBodyToResponse();
     }
@@ -18,6 +18,7 @@
 package com.wultra.app.mobileutilityserver.rest.model.converter;
 
 import com.wultra.app.mobileutilityserver.database.model.CertificateEntity;
+import com.wultra.app.mobileutilityserver.database.model.NamedFingerprint;
 import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
 import com.wultra.app.mobileutilityserver.rest.model.entity.FullCertificateInfo;
 import com.wultra.app.mobileutilityserver.rest.model.response.CertificateDetailResponse;
@@ -48,18 +49,18 @@ public class CertificateConverter {
     }
 
     /**
-     * Convert a database representation of a certificate to REST API representation with named fingerprint.
-     * @param source SSL certificate model in DB.
+     * Convert a database projection of a named fingerprint to REST API representation.
+     * @param source SSL fingerprint projection from DB.
      * @return SSL fingerprint model in REST API.
      */
-    public CertificateFingerprint convertNamedCertificateFrom(CertificateEntity source) {
+    public CertificateFingerprint convertNamedFingerprintFrom(NamedFingerprint source) {
         if (source == null) {
             return null;
         }
         final CertificateFingerprint destination = new CertificateFingerprint();
-        destination.setName(source.getDomain().getDomain());
-        destination.setFingerprint(source.getFingerprint());
-        destination.setExpires(source.getExpires());
+        destination.setName(source.domain());
+        destination.setFingerprint(source.fingerprint());
+        destination.setExpires(source.expires());
         return destination;
     }
 
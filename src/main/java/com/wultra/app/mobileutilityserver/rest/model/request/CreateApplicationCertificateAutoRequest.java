@@ -0,0 +1,43 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.model.request;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+/**
+ * Request for creating certificate by automatically fetching TLS/SSL certificate of the domain, optionally from
+ * a different port or with a different server name indication.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class CreateApplicationCertificateAutoRequest extends CreateApplicationCertificateRequest {
+
+    @Min(1)
+    @Max(65535)
+    @Schema(description = "Port of the TLS handshake, 443 if not set.", type = "integer", example = "8443")
+    private Integer port;
+
+    @Schema(description = "Server name indication of the TLS handshake, the domain if not set.", type = "string", example = "mobile.wultra.com")
+    private String serverName;
+
+}
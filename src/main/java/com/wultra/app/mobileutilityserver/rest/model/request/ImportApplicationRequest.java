@@ -0,0 +1,44 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.model.request;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Application of the import request, together with its certificates and versions.
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+public class ImportApplicationRequest extends CreateApplicationRequest {
+
+    @Valid
+    @NotNull
+    private List<CreateApplicationCertificatePemRequest> certificates = new ArrayList<>();
+
+    @Valid
+    @NotNull
+    private List<CreateApplicationVersionRequest> versions = new ArrayList<>();
+
+}
@@ -34,23 +34,17 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.cert.X509CertificateHolder;
 import org.bouncycastle.openssl.PEMParser;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import javax.net.ssl.HttpsURLConnection;
-import javax.net.ssl.SSLSocket;
-import javax.net.ssl.SSLSocketFactory;
 import java.io.IOException;
 import java.io.StringReader;
 import java.security.KeyPair;
 import java.security.NoSuchAlgorithmException;
-import java.security.cert.Certificate;
 import java.security.cert.CertificateEncodingException;
 import java.security.cert.X509Certificate;
-import java.util.Collections;
-import java.util.Date;
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
 
 /**
  * Administration related methods.
@@ -73,6 +67,10 @@ public class AdminService {
     private final MobileAppConverter mobileAppConverter;
 
     private final CryptographicOperationsService cryptographicOperationsService;
+    private final KeyPairPool keyPairPool;
+    private final CertificateFetcher certificateFetcher;
+
+    private final ApplicationEventPublisher applicationEventPublisher;
 
     /**
      * Create a new application and generate signing keypair to it
@@ -92,7 +90,7 @@ public class AdminService {
             }
 
             // Prepare signing keypair data
-            final KeyPair keyPair = cryptographicOperationsService.generateKeyPair();
+            final KeyPair keyPair = keyPairPool.take();
             final String privateKeyString = cryptographicOperationsService.convertPrivateKeyToBase64(keyPair.getPrivate());
             final String publicKeyString = cryptographicOperationsService.convertPublicKeyToBase64(keyPair.getPublic());
 
@@ -104,6 +102,7 @@ public class AdminService {
             mobileAppEntity.setSigningPublicKey(publicKeyString);
 
             final MobileAppEntity savedMobileAppEntity = mobileAppRepository.save(mobileAppEntity);
+            applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(name));
 
             return mobileAppConverter.convertMobileApp(savedMobileAppEntity);
         } catch (CryptoProviderException e) {
@@ -167,6 +166,7 @@ public class AdminService {
         certificateEntity.setExpires(expires);
 
         final CertificateEntity savedCertificateEntity = certificateRepository.save(certificateEntity);
+        applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(appName));
 
         final CertificateDetailResponse response = certificateConverter.convertCertificateDetailResponse(savedCertificateEntity);
         logger.info("Certificate refreshed: {}", response);
@@ -174,7 +174,10 @@ public class AdminService {
     }
 
     public CertificateDetailResponse createApplicationCertificate(String appName, CreateApplicationCertificatePemRequest request) throws IOException, NoSuchAlgorithmException, AppNotFoundException {
+        return this.createApplicationCertificate(appName, convert(appName, request));
+    }
 
+    private CreateApplicationCertificateDirectRequest convert(String appName, CreateApplicationCertificatePemRequest request) throws IOException, NoSuchAlgorithmException {
         final String domain = request.getDomain();
         final String pem = request.getPem();
 
@@ -192,14 +195,74 @@ public class AdminService {
         innerRequest.setPem(pem);
         innerRequest.setFingerprint(cryptographicOperationsService.computeSHA256Hash(x509Cert.getEncoded()));
         innerRequest.setExpires(notAfter);
+        return innerRequest;
+    }
 
-        return this.createApplicationCertificate(appName, innerRequest);
+    /**
+     * Create certificates of more domains of the application at once. Certificates already stored are left intact.
+     * @param appName App name.
+     * @param requests Certificates in PEM format together with their domains.
+     * @return Details of the certificates, in the order of the requests.
+     * @throws AppNotFoundException In case the application does not exist.
+     * @throws IOException In case a certificate can not be parsed.
+     * @throws NoSuchAlgorithmException In case the fingerprint algorithm does not exist.
+     */
+    public List<CertificateDetailResponse> createApplicationCertificates(String appName, List<CreateApplicationCertificatePemRequest> requests) throws AppNotFoundException, IOException, NoSuchAlgorithmException {
+        final MobileAppEntity mobileAppEntity = mobileAppRepository.findFirstByName(appName);
+        if (mobileAppEntity == null) {
+            throw new AppNotFoundException(appName);
+        }
+
+        final Map<String, MobileDomainEntity> domains = new HashMap<>();
+        mobileAppEntity.getDomains().forEach(domain -> domains.put(domain.getDomain(), domain));
+
+        final List<MobileDomainEntity> createdDomains = new ArrayList<>();
+        final List<CertificateEntity> certificates = new ArrayList<>(requests.size());
+        final List<CertificateEntity> createdCertificates = new ArrayList<>();
+        for (CreateApplicationCertificatePemRequest request : requests) {
+            final CreateApplicationCertificateDirectRequest directRequest = convert(appName, request);
+            final MobileDomainEntity domainEntity = domains.computeIfAbsent(directRequest.getDomain(), domain -> {
+                final MobileDomainEntity entity = new MobileDomainEntity();
+                entity.setApp(mobileAppEntity);
+                entity.setDomain(domain);
+                mobileAppEntity.getDomains().add(entity);
+                createdDomains.add(entity);
+                return entity;
+            });
+
+            final Optional<CertificateEntity> existingCertificate = domainEntity.getCertificates().stream()
+                    .filter(it -> directRequest.getFingerprint().equalsIgnoreCase(it.getFingerprint()))
+                    .findFirst();
+            if (existingCertificate.isPresent()) {
+                certificates.add(existingCertificate.get());
+                continue;
+            }
+
+            final CertificateEntity certificateEntity = new CertificateEntity();
+            certificateEntity.setDomain(domainEntity);
+            certificateEntity.setPem(directRequest.getPem());
+            certificateEntity.setFingerprint(directRequest.getFingerprint());
+            certificateEntity.setExpires(directRequest.getExpires());
+            domainEntity.getCertificates().add(certificateEntity);
+            certificates.add(certificateEntity);
+            createdCertificates.add(certificateEntity);
+        }
+
+        if (!createdCertificates.isEmpty()) {
+            mobileDomainRepository.saveAll(createdDomains);
+            certificateRepository.saveAll(createdCertificates);
+            applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(appName));
+        }
+        logger.info("Certificates refreshed for app: {}, created: {}, up-to-date: {}", appName, createdCertificates.size(), certificates.size() - createdCertificates.size());
+        return certificates.stream()
+                .map(certificateConverter::convertCertificateDetailResponse)
+                .toList();
     }
 
     public CertificateDetailResponse createApplicationCertificate(String appName, CreateApplicationCertificateRequest request) throws IOException, NoSuchAlgorithmException, AppNotFoundException, CertificateEncodingException {
         final String domain = request.getDomain();
 
-        final X509Certificate cert = fetchCertificate(domain);
+        final X509Certificate cert = certificateFetcher.fetch(CertificateFetcher.Target.of(domain));
         final String certPem = cryptographicOperationsService.certificateToPem(cert);
         logger.info("Certificate read for app: {}, domain: {}\n{}", appName, domain, certPem);
 
@@ -210,16 +273,6 @@ public class AdminService {
         return this.createApplicationCertificate(appName, innerRequest);
     }
 
-    private static X509Certificate fetchCertificate(final String domain) throws IOException {
-        final SSLSocketFactory factory = HttpsURLConnection.getDefaultSSLSocketFactory();
-        try (final SSLSocket socket = (SSLSocket) factory.createSocket(domain, 443)) {
-            socket.setEnabledProtocols(new String[]{"TLSv1.2", "TLSv1.3"});
-            socket.startHandshake();
-            final Certificate[] certs = socket.getSession().getPeerCertificates();
-            return (X509Certificate) certs[0];
-        }
-    }
-
     public void deleteCertificate(String appName, String domain, String fingerprint) {
         final MobileDomainEntity mobileDomainEntity = mobileDomainRepository.findFirstByAppNameAndDomain(appName, domain);
         if (mobileDomainEntity == null) {
@@ -230,6 +283,7 @@ public class AdminService {
             if (certificate.getFingerprint().equalsIgnoreCase(fingerprint)) {
                 certificates.remove(certificate);
                 mobileDomainRepository.save(mobileDomainEntity);
+                applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(appName));
                 return;
             }
         }
@@ -237,10 +291,7 @@ public class AdminService {
 
     public void deleteDomain(String appName, String domain) {
         mobileDomainRepository.deleteByAppNameAndDomain(appName, domain);
-    }
-
-    public void deleteExpiredCertificates() {
-        certificateRepository.deleteAllByExpiresBefore(new Date().getTime() / 1000);
+        applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(appName));
     }
 
     @Transactional(readOnly = true)
@@ -267,6 +318,7 @@ public class AdminService {
         }
         entity.setApp(app);
         final var result = mobileAppVersionRepository.save(entity);
+        applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(applicationName));
         return convert(result);
     }
 
@@ -294,6 +346,7 @@ public class AdminService {
     public void deleteApplicationVersion(final String applicationName, final Long id) {
         logger.debug("Deleting application version name: {}, ID: {}", applicationName, id);
         mobileAppVersionRepository.deleteById(id);
+        applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(applicationName));
     }
 
     @Transactional(readOnly = true)
@@ -312,6 +365,7 @@ public class AdminService {
     public TextDetailResponse createText(final CreateTextRequest request) {
         logger.debug("Creating text key: {}, language: {}", request.getMessageKey(), request.getLanguage());
         final var result = localizedTextRepository.save(convert(request));
+        applicationEventPublisher.publishEvent(new LocalizedTextChangedEvent());
         return convert(result);
     }
 
@@ -319,9 +373,10 @@ public class AdminService {
         final var id = new LocalizedTextEntity.LocalizedTextId(key, language);
         logger.debug("Deleting text ID: {}", id);
         localizedTextRepository.deleteById(id);
+        applicationEventPublisher.publishEvent(new LocalizedTextChangedEvent());
     }
 
-    private static LocalizedTextEntity convert(final CreateTextRequest source) {
+    static LocalizedTextEntity convert(final CreateTextRequest source) {
         final var target = new LocalizedTextEntity();
         target.setMessageKey(source.getMessageKey());
         target.setLanguage(source.getLanguage());
@@ -369,7 +424,7 @@ public class AdminService {
         };
     }
 
-    private static MobileAppVersionEntity convert(final CreateApplicationVersionRequest source) {
+    static MobileAppVersionEntity convert(final CreateApplicationVersionRequest source) {
         final var target = new MobileAppVersionEntity();
         target.setRequiredVersion(source.getRequiredVersion());
         target.setSuggestedVersion(source.getSuggestedVersion());
@@ -0,0 +1,186 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppException;
+import com.wultra.app.mobileutilityserver.rest.model.response.AdminTokenResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.stream.Collectors;
+
+/**
+ * Service issuing and verifying bearer tokens for the admin API.
+ * <p>
+ * A token is issued to a user authenticated by the password and carries the username, the authorities, and
+ * the expiration, signed by HMAC-SHA256. Verification of a token is a constant-time MAC check without any database
+ * lookup, so a token stays valid until it expires even if the user is disabled meanwhile. Therefore, the time-to-live
+ * should be short. Without a configured secret, a random one is generated on startup, tokens are then accepted only
+ * by the node which issued them and only until its restart.
+ */
+@Service
+@Slf4j
+public class AdminTokenService {
+
+    private static final String HMAC_ALGORITHM = "HmacSHA256";
+
+    private static final int MIN_SECRET_LENGTH = 32;
+
+    private static final String SEPARATOR = "\n";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final boolean enabled;
+    private final Duration ttl;
+    private final SecretKeySpec key;
+
+    @Autowired
+    public AdminTokenService(
+            @Value("${mobile-utility-server.security.auth.token.enabled}") final boolean enabled,
+            @Value("${mobile-utility-server.security.auth.token.ttl}") final Duration ttl,
+            @Value("${mobile-utility-server.security.auth.token.secret}") final String secret) {
+
+        this.enabled = enabled;
+        this.ttl = ttl;
+        this.key = new SecretKeySpec(secretBytes(enabled, secret), HMAC_ALGORITHM);
+    }
+
+    private static byte[] secretBytes(final boolean enabled, final String secret) {
+        if (!StringUtils.hasText(secret)) {
+            if (enabled) {
+                logger.info("No admin token secret configured, tokens are valid only on this node until its restart");
+            }
+            final byte[] random = new byte[MIN_SECRET_LENGTH];
+            new SecureRandom().nextBytes(random);
+            return random;
+        }
+        final byte[] decoded = Base64.getDecoder().decode(secret);
+        if (decoded.length < MIN_SECRET_LENGTH) {
+            throw new IllegalStateException("Admin token secret must have at least " + MIN_SECRET_LENGTH + " bytes");
+        }
+        return decoded;
+    }
+
+    /**
+     * Whether the token authentication is enabled.
+     *
+     * @return True if enabled.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Issue a token for the given user, who must be authenticated by the password.
+     *
+     * @param authentication Authentication of the user.
+     * @return Token and its expiration.
+     * @throws AppException In case the token authentication is disabled or the user is not authenticated by the password.
+     */
+    public AdminTokenResponse issue(final Authentication authentication) throws AppException {
+        if (!enabled) {
+            throw new AppException("Token authentication is disabled");
+        }
+        if (!(authentication instanceof UsernamePasswordAuthenticationToken)) {
+            // Otherwise, a token could be prolonged indefinitely without the password
+            throw new AppException("Token can be issued only for the password authentication");
+        }
+
+        final long expires = Instant.now().plus(ttl).getEpochSecond();
+        final String authorities = authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .collect(Collectors.joining(","));
+        final byte[] payload = String.join(SEPARATOR, Long.toString(expires), authorities, authentication.getName())
+                .getBytes(StandardCharsets.UTF_8);
+
+        final AdminTokenResponse response = new AdminTokenResponse();
+        response.setToken(ENCODER.encodeToString(payload) + "." + ENCODER.encodeToString(mac(payload)));
+        response.setExpires(expires);
+        logger.info("Issued admin token for user: {}, expires: {}", authentication.getName(), expires);
+        return response;
+    }
+
+    /**
+     * Verify the given token.
+     *
+     * @param token Token.
+     * @return Authentication of the user or {@code null} if the token is invalid or expired.
+     */
+    public Authentication verify(final String token) {
+        final int dot = token.indexOf('.');
+        if (dot < 0) {
+            return null;
+        }
+
+        final byte[] payload;
+        final byte[] signature;
+        try {
+            payload = DECODER.decode(token.substring(0, dot));
+            signature = DECODER.decode(token.substring(dot + 1));
+        } catch (IllegalArgumentException e) {
+            logger.debug("Invalid admin token encoding", e);
+            return null;
+        }
+        if (!MessageDigest.isEqual(mac(payload), signature)) {
+            logger.debug("Invalid admin token signature");
+            return null;
+        }
+
+        final String[] parts = new String(payload, StandardCharsets.UTF_8).split(SEPARATOR, 3);
+        if (parts.length != 3) {
+            return null;
+        }
+        final long expires = Long.parseLong(parts[0]);
+        if (Instant.now().getEpochSecond() >= expires) {
+            logger.debug("Expired admin token of user: {}", parts[2]);
+            return null;
+        }
+        return new PreAuthenticatedAuthenticationToken(parts[2], null, AuthorityUtils.commaSeparatedStringToAuthorityList(parts[1]));
+    }
+
+    private byte[] mac(final byte[] payload) {
+        try {
+            // HmacSHA256 is provided by the JDK, Bouncy Castle is registered last so it is not preferred
+            final Mac mac = Mac.getInstance(HMAC_ALGORITHM);
+            mac.init(key);
+            return mac.doFinal(payload);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to compute " + HMAC_ALGORITHM, e);
+        }
+    }
+}
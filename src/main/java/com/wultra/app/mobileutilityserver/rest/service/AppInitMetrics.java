@@ -0,0 +1,153 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Metrics of the stages of the app initialization request.
+ * <p>
+ * Stages are recorded by a single timer tagged by the stage, application name and outcome. Application names come from
+ * the request, so only existing applications are tagged by their name, at most the configured number of them, the rest
+ * is tagged as {@value #OTHER_APP}. Requests for non-existing applications are tagged as {@value #UNKNOWN_APP}.
+ */
+@Component
+@Slf4j
+public class AppInitMetrics {
+
+    static final String STAGE_METRIC = "mobile_utility_server.app_init.stage";
+    static final String RESPONSE_SIZE_METRIC = "mobile_utility_server.app_init.response.size";
+
+    public static final String UNKNOWN_APP = "unknown";
+    static final String OTHER_APP = "other";
+
+    public static final String STAGE_APP_LOAD = "app_load";
+    public static final String STAGE_FINGERPRINT_LOAD = "fingerprint_load";
+    public static final String STAGE_VERSION_RULE_LOAD = "version_rule_load";
+    public static final String STAGE_PRIVATE_KEY_LOAD = "private_key_load";
+    public static final String STAGE_APP_LOOKUP = "app_lookup";
+    public static final String STAGE_VERSION_VERIFICATION = "version_verification";
+    public static final String STAGE_TEXT_LOOKUP = "text_lookup";
+    public static final String STAGE_SERIALIZATION = "serialization";
+    public static final String STAGE_SIGNATURE = "signature";
+
+    public static final String OUTCOME_OK = "ok";
+    public static final String OUTCOME_FAILED = "failed";
+    public static final String OUTCOME_FOUND = "found";
+    public static final String OUTCOME_NOT_FOUND = "not_found";
+    public static final String OUTCOME_SKIPPED = "skipped";
+
+    private final MeterRegistry meterRegistry;
+    private final int maxAppTags;
+
+    private final Set<String> appTags = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Number of reserved application tags, bounds {@link #appTags} without locking.
+     */
+    private final AtomicInteger appTagCount = new AtomicInteger();
+
+    /**
+     * Meters by their tags, saves building the meter ID on each request.
+     */
+    private final ConcurrentMap<StageKey, Timer> timers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, DistributionSummary> responseSizes = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AppInitMetrics(
+            final MeterRegistry meterRegistry,
+            @Value("${mobile-utility-server.metrics.max-app-tags}") final int maxAppTags) {
+
+        this.meterRegistry = meterRegistry;
+        this.maxAppTags = maxAppTags;
+    }
+
+    /**
+     * Return the tag value for an existing application.
+     *
+     * @param appName Name of an existing application.
+     * @return App name or {@value #OTHER_APP} if there are too many applications tagged already.
+     */
+    public String appTag(final String appName) {
+        if (appTags.contains(appName)) {
+            return appName;
+        }
+        if (appTagCount.getAndUpdate(count -> count < maxAppTags ? count + 1 : count) < maxAppTags) {
+            if (!appTags.add(appName)) {
+                // Tagged by another thread meanwhile, release the reserved slot
+                appTagCount.decrementAndGet();
+            }
+            return appName;
+        }
+        if (appTags.contains(appName)) {
+            return appName;
+        }
+        logger.debug("Too many applications tagged, tagging application name: {} as {}", appName, OTHER_APP);
+        return OTHER_APP;
+    }
+
+    /**
+     * Record duration of a stage.
+     *
+     * @param stage Stage.
+     * @param appTag Application tag, see {@link #appTag(String)}, or {@link #UNKNOWN_APP}.
+     * @param outcome Outcome of the stage.
+     * @param startNanos Start of the stage by {@link System#nanoTime()}.
+     */
+    public void recordStage(final String stage, final String appTag, final String outcome, final long startNanos) {
+        final long duration = System.nanoTime() - startNanos;
+        timers.computeIfAbsent(new StageKey(stage, appTag, outcome), key -> Timer.builder(STAGE_METRIC)
+                        .description("Duration of the stages of the app initialization request")
+                        .tag("stage", key.stage())
+                        .tag("app", key.app())
+                        .tag("outcome", key.outcome())
+                        .register(meterRegistry))
+                .record(duration, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record size of the response body.
+     *
+     * @param appTag Application tag, see {@link #appTag(String)}.
+     * @param size Size in bytes.
+     */
+    public void recordResponseSize(final String appTag, final int size) {
+        responseSizes.computeIfAbsent(appTag, key -> DistributionSummary.builder(RESPONSE_SIZE_METRIC)
+                        .description("Size of the app initialization response body")
+                        .baseUnit("bytes")
+                        .tag("app", key)
+                        .register(meterRegistry))
+                .record(size);
+    }
+
+    private record StageKey(String stage, String app, String outcome) {
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.wultra.app.mobileutilityserver.rest.model.response.AppInitResponse;
+import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Cache of serialized {@link AppInitResponse} bodies.
+ * <p>
+ * The body depends only on the application snapshot and on the result of the version verification, apart from
+ * the timestamp which is spliced into the pre-serialized bytes at second granularity. The timestamp stays the first
+ * property of the body, so the signed payload has the same layout as the body serialized by Jackson. Entries belong
+ * to a snapshot instance, so they are rebuilt whenever the snapshot is reloaded, and they are evicted when
+ * {@link MobileAppChangedEvent} is committed, so entries of deleted or renamed applications do not accumulate.
+ * <p>
+ * Each body has a strong entity tag made of the configuration generation of the application and a digest of the body
+ * without the timestamp, so the tag changes with the configuration as well as with the version verification result.
+ */
+@Component
+@Slf4j
+public class AppInitResponseCache {
+
+    private static final String TIMESTAMP_PROPERTY = "timestamp";
+    private static final byte[] TIMESTAMP_PREFIX = ("{\"" + TIMESTAMP_PROPERTY + "\":").getBytes(StandardCharsets.UTF_8);
+    private static final int ETAG_DIGEST_LENGTH = 8;
+
+    private final ObjectMapper objectMapper;
+
+    private final ConcurrentMap<Key, CachedBody> bodies = new ConcurrentHashMap<>();
+
+    @Autowired
+    public AppInitResponseCache(final ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Return serialized app init response with the current timestamp.
+     *
+     * @param app Application snapshot.
+     * @param verifyVersionResult Result of the version verification, may be {@code null}.
+     * @return JSON body of the response, the array must not be modified.
+     */
+    public byte[] serialize(final MobileAppSnapshot app, final VerifyVersionResult verifyVersionResult) {
+        return cachedBody(app, verifyVersionResult).withTimestamp(Instant.now().getEpochSecond());
+    }
+
+    /**
+     * Return strong entity tag of the app init response, equal for the responses differing only in the timestamp.
+     *
+     * @param app Application snapshot.
+     * @param verifyVersionResult Result of the version verification, may be {@code null}.
+     * @return Quoted entity tag.
+     */
+    public String etag(final MobileAppSnapshot app, final VerifyVersionResult verifyVersionResult) {
+        return cachedBody(app, verifyVersionResult).etag();
+    }
+
+    /**
+     * Evict bodies of the applications affected by the committed change.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMobileAppChanged(final MobileAppChangedEvent event) {
+        logger.debug("Evicting app init response bodies, {}", event);
+        if (event.isAllApps()) {
+            bodies.clear();
+        } else {
+            bodies.keySet().removeIf(key -> key.appName().equals(event.getAppName()));
+        }
+    }
+
+    private CachedBody cachedBody(final MobileAppSnapshot app, final VerifyVersionResult verifyVersionResult) {
+        final Key key = new Key(app.getName(), verifyVersionResult);
+        CachedBody cached = bodies.get(key);
+        if (cached == null || cached.snapshot() != app) {
+            cached = new CachedBody(app, serializeWithoutTimestamp(app, verifyVersionResult));
+            bodies.put(key, cached);
+        }
+        return cached;
+    }
+
+    private byte[] serializeWithoutTimestamp(final MobileAppSnapshot app, final VerifyVersionResult verifyVersionResult) {
+        logger.debug("Serializing app init response, appName: {}, {}", app.getName(), verifyVersionResult);
+        final ObjectNode node = objectMapper.valueToTree(new AppInitResponse(app.getFingerprints(), verifyVersionResult));
+        node.remove(TIMESTAMP_PROPERTY);
+        try {
+            return objectMapper.writeValueAsBytes(node);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Unable to serialize app init response, appName: " + app.getName(), ex);
+        }
+    }
+
+    private record Key(String appName, VerifyVersionResult verifyVersionResult) {
+    }
+
+    /**
+     * Serialized body without the timestamp together with the last body completed with the timestamp.
+     */
+    private static final class CachedBody {
+
+        private final MobileAppSnapshot snapshot;
+
+        /**
+         * JSON object without the timestamp, including the opening and closing brace.
+         */
+        private final byte[] body;
+
+        private final String etag;
+
+        private volatile TimestampedBody timestampedBody;
+
+        private CachedBody(final MobileAppSnapshot snapshot, final byte[] body) {
+            this.snapshot = snapshot;
+            this.body = body;
+            this.etag = "\"" + snapshot.getGeneration() + '-' + digest(body) + '"';
+        }
+
+        private static String digest(final byte[] body) {
+            try {
+                final byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+                return HexFormat.of().formatHex(digest, 0, ETAG_DIGEST_LENGTH);
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+
+        private MobileAppSnapshot snapshot() {
+            return snapshot;
+        }
+
+        private String etag() {
+            return etag;
+        }
+
+        private byte[] withTimestamp(final long timestamp) {
+            final TimestampedBody current = timestampedBody;
+            if (current != null && current.timestamp() == timestamp) {
+                return current.body();
+            }
+
+            final byte[] timestampBytes = Long.toString(timestamp).getBytes(StandardCharsets.US_ASCII);
+            // Properties following the opening brace, empty object has just the closing brace
+            final int restLength = body.length - 1;
+            final boolean separator = restLength > 1;
+            final int prefixLength = TIMESTAMP_PREFIX.length + timestampBytes.length + (separator ? 1 : 0);
+            final byte[] result = new byte[prefixLength + restLength];
+            System.arraycopy(TIMESTAMP_PREFIX, 0, result, 0, TIMESTAMP_PREFIX.length);
+            System.arraycopy(timestampBytes, 0, result, TIMESTAMP_PREFIX.length, timestampBytes.length);
+            if (separator) {
+                result[prefixLength - 1] = ',';
+            }
+            System.arraycopy(body, 1, result, prefixLength, restLength);
+
+            timestampedBody = new TimestampedBody(timestamp, result);
+            return result;
+        }
+    }
+
+    private record TimestampedBody(long timestamp, byte[] body) {
+    }
+}
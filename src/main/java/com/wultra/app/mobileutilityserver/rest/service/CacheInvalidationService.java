@@ -0,0 +1,295 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.CacheInvalidationEntity;
+import com.wultra.app.mobileutilityserver.database.repo.CacheInvalidationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Service propagating {@link MobileAppChangedEvent} and {@link LocalizedTextChangedEvent} to the other nodes
+ * of a cluster, so each node evicts only the affected in-memory state.
+ * <p>
+ * A change is recorded in the table {@code mus_cache_invalidation} within the transaction that made it. The other
+ * nodes poll the table and publish the events locally. On PostgreSQL, the change is also announced by
+ * {@code NOTIFY} on commit, so listening nodes poll immediately and the poll interval only bounds the recovery
+ * of missed notifications. Each poll looks back for a minute to pick up changes committed out of order, so the clocks
+ * of the nodes should not differ by more than that.
+ */
+@Service
+@Slf4j
+public class CacheInvalidationService implements SmartLifecycle {
+
+    static final String CHANNEL = "mus_cache_invalidation";
+
+    private static final Duration LOOKBACK = Duration.ofMinutes(1);
+
+    private static final Duration RETENTION = Duration.ofHours(1);
+
+    private final String nodeId = UUID.randomUUID().toString();
+
+    private final CacheInvalidationRepository cacheInvalidationRepository;
+    private final DataSource dataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final boolean enabled;
+    private final long pollIntervalMillis;
+
+    /**
+     * Set while publishing received events, so they are not recorded again.
+     */
+    private final ThreadLocal<Boolean> receiving = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    /**
+     * IDs of the changes within the lookback, guarded by {@code this}.
+     */
+    private final Map<Long, LocalDateTime> received = new HashMap<>();
+
+    private volatile boolean postgres;
+
+    private volatile Thread receiver;
+
+    @Autowired
+    public CacheInvalidationService(
+            final CacheInvalidationRepository cacheInvalidationRepository,
+            final DataSource dataSource,
+            final JdbcTemplate jdbcTemplate,
+            final TransactionTemplate transactionTemplate,
+            final ApplicationEventPublisher applicationEventPublisher,
+            @Value("${mobile-utility-server.cache.invalidation.enabled}") final boolean enabled,
+            @Value("${mobile-utility-server.cache.invalidation.poll-interval}") final Duration pollInterval) {
+
+        this.cacheInvalidationRepository = cacheInvalidationRepository;
+        this.dataSource = dataSource;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.enabled = enabled;
+        this.pollIntervalMillis = Math.max(1, pollInterval.toMillis());
+    }
+
+    /**
+     * Record the change of an application for the other nodes.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onMobileAppChanged(final MobileAppChangedEvent event) {
+        record(CacheInvalidationEntity.Topic.APP, event.getAppName());
+    }
+
+    /**
+     * Record the change of localized texts for the other nodes.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onLocalizedTextChanged(final LocalizedTextChangedEvent event) {
+        record(CacheInvalidationEntity.Topic.TEXT, null);
+    }
+
+    private void record(final CacheInvalidationEntity.Topic topic, final String appName) {
+        if (!enabled || receiving.get()) {
+            return;
+        }
+
+        final CacheInvalidationEntity entity = new CacheInvalidationEntity();
+        entity.setNodeId(nodeId);
+        entity.setTopic(topic);
+        entity.setAppName(appName);
+        entity.setTimestampCreated(LocalDateTime.now());
+
+        // Joins the transaction of the change, if any
+        transactionTemplate.executeWithoutResult(status -> {
+            cacheInvalidationRepository.save(entity);
+            if (postgres) {
+                // Delivered on commit
+                jdbcTemplate.query("SELECT pg_notify(?, ?)", rs -> null, CHANNEL, nodeId);
+            }
+        });
+        logger.debug("Recorded cache invalidation: {}", entity);
+    }
+
+    /**
+     * Publish the changes made by the other nodes as local events.
+     */
+    synchronized void poll() {
+        final LocalDateTime since = LocalDateTime.now().minus(LOOKBACK);
+        received.values().removeIf(it -> it.isBefore(since));
+
+        for (final CacheInvalidationEntity entity : cacheInvalidationRepository.findAllByTimestampCreatedAfterOrderById(since)) {
+            if (received.putIfAbsent(entity.getId(), entity.getTimestampCreated()) != null || nodeId.equals(entity.getNodeId())) {
+                continue;
+            }
+
+            logger.debug("Received cache invalidation: {}", entity);
+            receiving.set(Boolean.TRUE);
+            try {
+                applicationEventPublisher.publishEvent(convert(entity));
+            } finally {
+                receiving.remove();
+            }
+        }
+    }
+
+    private static Object convert(final CacheInvalidationEntity entity) {
+        return switch (entity.getTopic()) {
+            case APP -> entity.getAppName() == null ? MobileAppChangedEvent.allApps() : MobileAppChangedEvent.of(entity.getAppName());
+            case TEXT -> new LocalizedTextChangedEvent();
+        };
+    }
+
+    /**
+     * Scheduled purge of the changes older than the retention.
+     */
+    @Scheduled(fixedDelay = 1, initialDelay = 1, timeUnit = TimeUnit.HOURS)
+    public void scheduledDeleteOldChanges() {
+        if (!enabled) {
+            return;
+        }
+        final int removed = cacheInvalidationRepository.deleteAllByTimestampCreatedBefore(LocalDateTime.now().minus(RETENTION));
+        logger.debug("Deleted {} old cache invalidations", removed);
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            logger.info("Cluster cache invalidation is disabled");
+            return;
+        }
+
+        postgres = isPostgres();
+        final Thread thread = new Thread(this::receive, "mus-cache-invalidation");
+        thread.setDaemon(true);
+        receiver = thread;
+        thread.start();
+        logger.info("Started cluster cache invalidation, node: {}, notifications: {}", nodeId, postgres);
+    }
+
+    @Override
+    public void stop() {
+        final Thread thread = receiver;
+        receiver = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return receiver != null;
+    }
+
+    private boolean isPostgres() {
+        try (Connection connection = dataSource.getConnection()) {
+            return "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName());
+        } catch (SQLException e) {
+            logger.warn("Unable to detect database, falling back to polling, {}", e.getMessage());
+            logger.debug("Exception detail: ", e);
+            return false;
+        }
+    }
+
+    private void receive() {
+        while (isReceiving()) {
+            try {
+                if (postgres) {
+                    listen();
+                } else {
+                    Thread.sleep(pollIntervalMillis);
+                    poll();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                logger.warn("Cache invalidation failed, {}", e.getMessage());
+                logger.debug("Exception detail: ", e);
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean isReceiving() {
+        return receiver == Thread.currentThread() && !Thread.currentThread().isInterrupted();
+    }
+
+    /**
+     * Listen to notifications on a dedicated connection, polling on each notification of another node
+     * and at least once per poll interval.
+     */
+    private void listen() throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+            }
+            if (!connection.getAutoCommit()) {
+                connection.commit();
+            }
+            final PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            // Changes missed while not listening
+            poll();
+
+            while (isReceiving()) {
+                final PGNotification[] notifications = pgConnection.getNotifications((int) Math.min(pollIntervalMillis, Integer.MAX_VALUE));
+                if (notifications == null || notifications.length == 0 || fromOtherNode(notifications)) {
+                    poll();
+                }
+            }
+        }
+    }
+
+    private boolean fromOtherNode(final PGNotification[] notifications) {
+        for (final PGNotification notification : notifications) {
+            if (!nodeId.equals(notification.getParameter())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
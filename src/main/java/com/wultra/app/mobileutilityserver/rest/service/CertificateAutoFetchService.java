@@ -0,0 +1,99 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppNotFoundException;
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFetchError;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationCertificateAutoRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationCertificatePemRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationCertificatesAutoRequest;
+import com.wultra.app.mobileutilityserver.rest.model.response.CertificateListResponse;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service creating certificates of more domains by automatically fetching them at once.
+ * <p>
+ * The domains are contacted in parallel by {@link CertificateFetcher} before any transaction is started, so no
+ * database connection is held during the network I/O. The fetched certificates are then stored in a single transaction.
+ */
+@Service
+@Slf4j
+@AllArgsConstructor
+public class CertificateAutoFetchService {
+
+    private final MobileAppRepository mobileAppRepository;
+    private final CertificateFetcher certificateFetcher;
+    private final CryptographicOperationsService cryptographicOperationsService;
+    private final AdminService adminService;
+
+    /**
+     * Fetch and store the certificates of the given domains. A domain which can not be contacted is reported in
+     * the response and does not prevent storing the certificates of the other domains.
+     *
+     * @param appName App name.
+     * @param request Request with the domains.
+     * @return Stored certificates and failures.
+     * @throws AppNotFoundException In case the application does not exist.
+     * @throws IOException In case a certificate can not be parsed.
+     * @throws NoSuchAlgorithmException In case the fingerprint algorithm does not exist.
+     * @throws CertificateEncodingException In case a certificate can not be encoded.
+     */
+    public CertificateListResponse createApplicationCertificates(final String appName, final CreateApplicationCertificatesAutoRequest request) throws AppNotFoundException, IOException, NoSuchAlgorithmException, CertificateEncodingException {
+        if (!mobileAppRepository.existsByName(appName)) {
+            throw new AppNotFoundException(appName);
+        }
+
+        final List<CertificateFetcher.Target> targets = request.getCertificates().stream()
+                .map(CertificateAutoFetchService::convert)
+                .toList();
+        final List<CertificateFetcher.Result> results = certificateFetcher.fetchAll(targets);
+
+        final CertificateListResponse response = new CertificateListResponse();
+        final List<CreateApplicationCertificatePemRequest> pemRequests = new ArrayList<>();
+        for (final CertificateFetcher.Result result : results) {
+            if (result.certificate() == null) {
+                response.getErrors().add(new CertificateFetchError(result.target().domain(), result.error()));
+                continue;
+            }
+            final CreateApplicationCertificatePemRequest pemRequest = new CreateApplicationCertificatePemRequest();
+            pemRequest.setDomain(result.target().domain());
+            pemRequest.setPem(cryptographicOperationsService.certificateToPem(result.certificate()));
+            pemRequests.add(pemRequest);
+        }
+
+        if (!pemRequests.isEmpty()) {
+            response.getCertificates().addAll(adminService.createApplicationCertificates(appName, pemRequests));
+        }
+        logger.info("Certificates fetched for app: {}, fetched: {}, failed: {}", appName, pemRequests.size(), response.getErrors().size());
+        return response;
+    }
+
+    private static CertificateFetcher.Target convert(final CreateApplicationCertificateAutoRequest source) {
+        return new CertificateFetcher.Target(source.getDomain(), source.getPort(), source.getServerName());
+    }
+}
@@ -0,0 +1,145 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.CertificateRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileDomainRepository;
+import com.wultra.app.mobileutilityserver.rest.model.response.CertificateCleanupResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Service purging expired certificates from the database.
+ * <p>
+ * Certificates are deleted in batches of bounded size, each batch in its own transaction, so the purge neither holds
+ * long locks nor builds a large persistence context. Each batch publishes {@link MobileAppChangedEvent} within its
+ * transaction, so the configuration generation is bumped together with the change. Expired fingerprints are not
+ * served even before they are purged.
+ * Domains left without any certificate may be removed the same way. In a cluster, the scheduled purge runs on
+ * a single node at a time, see {@link SchedulerLockService}.
+ */
+@Service
+@Slf4j
+public class CertificateCleanupService {
+
+    private final CertificateRepository certificateRepository;
+    private final MobileDomainRepository mobileDomainRepository;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final SchedulerLockService schedulerLockService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean removeEmptyDomains;
+
+    @Autowired
+    public CertificateCleanupService(
+            final CertificateRepository certificateRepository,
+            final MobileDomainRepository mobileDomainRepository,
+            final ApplicationEventPublisher applicationEventPublisher,
+            final SchedulerLockService schedulerLockService,
+            final TransactionTemplate transactionTemplate,
+            @Value("${mobile-utility-server.certificate.expired-cleanup.batch-size}") final int batchSize,
+            @Value("${mobile-utility-server.certificate.expired-cleanup.remove-empty-domains}") final boolean removeEmptyDomains) {
+
+        this.certificateRepository = certificateRepository;
+        this.mobileDomainRepository = mobileDomainRepository;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.schedulerLockService = schedulerLockService;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.removeEmptyDomains = removeEmptyDomains;
+    }
+
+    /**
+     * Scheduled purge of expired certificates, run on a single node of a cluster.
+     */
+    @Scheduled(cron = "${mobile-utility-server.certificate.expired-cleanup.cron}")
+    public void scheduledDeleteExpiredCertificates() {
+        schedulerLockService.runLocked("certificate-cleanup", () -> {
+            logger.debug("Running scheduled purge of expired certificates");
+            deleteExpiredCertificates();
+        });
+    }
+
+    /**
+     * Delete certificates that expired before now, removing the domains left empty if configured so.
+     *
+     * @return Numbers of deleted certificates and domains.
+     */
+    public CertificateCleanupResponse deleteExpiredCertificates() {
+        return deleteExpiredCertificates(removeEmptyDomains);
+    }
+
+    /**
+     * Delete certificates that expired before now.
+     *
+     * @param removeEmptyDomains Whether to delete also domains without any certificate.
+     * @return Numbers of deleted certificates and domains.
+     */
+    public CertificateCleanupResponse deleteExpiredCertificates(final boolean removeEmptyDomains) {
+        final long now = Instant.now().getEpochSecond();
+        final CertificateCleanupResponse response = new CertificateCleanupResponse();
+        response.setCertificates(deleteInBatches(
+                () -> certificateRepository.findIdsByExpiresBefore(now, PageRequest.ofSize(batchSize)),
+                certificateRepository::deleteAllByIdIn));
+        if (removeEmptyDomains) {
+            response.setDomains(deleteInBatches(
+                    () -> mobileDomainRepository.findIdsWithoutCertificates(PageRequest.ofSize(batchSize)),
+                    mobileDomainRepository::deleteAllWithoutCertificatesByIdIn));
+        }
+
+        if (response.getCertificates() > 0 || response.getDomains() > 0) {
+            logger.info("Deleted {} expired certificates and {} empty domains", response.getCertificates(), response.getDomains());
+        }
+        return response;
+    }
+
+    private int deleteInBatches(final Supplier<List<Long>> idsSupplier, final ToIntFunction<List<Long>> deleteFunction) {
+        int removed = 0;
+        List<Long> ids;
+        do {
+            ids = idsSupplier.get();
+            if (!ids.isEmpty()) {
+                removed += deleteBatch(ids, deleteFunction);
+            }
+        } while (ids.size() == batchSize);
+        return removed;
+    }
+
+    private int deleteBatch(final List<Long> ids, final ToIntFunction<List<Long>> deleteFunction) {
+        final Integer deleted = transactionTemplate.execute(status -> {
+            final int count = deleteFunction.applyAsInt(ids);
+            if (count > 0) {
+                applicationEventPublisher.publishEvent(MobileAppChangedEvent.allApps());
+            }
+            return count;
+        });
+        return deleted != null ? deleted : 0;
+    }
+}
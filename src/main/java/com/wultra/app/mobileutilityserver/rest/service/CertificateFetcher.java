@@ -0,0 +1,261 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.net.UnknownHostException;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetcher of TLS certificates of domains.
+ * <p>
+ * Certificates are read by a TLS handshake with the domain. Both the connection and each read of the handshake are
+ * bounded by the configured timeout. More domains are fetched in parallel by a bounded pool of threads, so rotating
+ * many domains takes about as long as the slowest of them. A random delay spreading the handshakes is awaited before
+ * the fetch is handed over to the pool, so the delay does not hold a thread of the pool. The whole batch is bounded by the batch timeout as well,
+ * so a host trickling the handshake byte by byte can not block the caller, its connection is closed when the batch
+ * timeout elapses.
+ * <p>
+ * Failures are reported by stable messages, the exception detail is logged only, so that the responses do not
+ * disclose internal host names or resolver details.
+ */
+@Component
+@Slf4j
+public class CertificateFetcher {
+
+    /**
+     * Default port of the TLS handshake.
+     */
+    public static final int DEFAULT_PORT = 443;
+
+    static final String ERROR_TIMEOUT = "Connection timed out";
+    static final String ERROR_UNKNOWN_HOST = "Unknown host";
+    static final String ERROR_CONNECTION_REFUSED = "Connection refused";
+    static final String ERROR_HANDSHAKE = "TLS handshake failed";
+    static final String ERROR_CONNECTION = "Connection failed";
+
+    private static final String[] PROTOCOLS = {"TLSv1.2", "TLSv1.3"};
+
+    private final SSLSocketFactory socketFactory;
+    private final int timeoutMillis;
+    private final long batchTimeoutNanos;
+    private final ExecutorService executor;
+
+    @Autowired
+    public CertificateFetcher(
+            @Value("${mobile-utility-server.certificate.fetch.concurrency}") final int concurrency,
+            @Value("${mobile-utility-server.certificate.fetch.timeout}") final Duration timeout,
+            @Value("${mobile-utility-server.certificate.fetch.batch-timeout}") final Duration batchTimeout) {
+
+        this(HttpsURLConnection.getDefaultSSLSocketFactory(), concurrency, timeout, batchTimeout);
+    }
+
+    CertificateFetcher(final SSLSocketFactory socketFactory, final int concurrency, final Duration timeout, final Duration batchTimeout) {
+        this.socketFactory = socketFactory;
+        this.timeoutMillis = Math.toIntExact(timeout.toMillis());
+        this.batchTimeoutNanos = batchTimeout.toNanos();
+        final AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            final Thread thread = new Thread(runnable, "mus-certificate-fetch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Fetch the leaf certificate of the given target.
+     *
+     * @param target Target to connect to.
+     * @return Leaf certificate presented by the target.
+     * @throws IOException In case of a connection or handshake failure, including a timeout.
+     */
+    public X509Certificate fetch(final Target target) throws IOException {
+        return fetch(target, new Socket());
+    }
+
+    private X509Certificate fetch(final Target target, final Socket socket) throws IOException {
+        final int port = target.port() != null ? target.port() : DEFAULT_PORT;
+        try (socket) {
+            socket.connect(new InetSocketAddress(target.domain(), port), timeoutMillis);
+            socket.setSoTimeout(timeoutMillis);
+            try (final SSLSocket sslSocket = (SSLSocket) socketFactory.createSocket(socket, target.domain(), port, true)) {
+                final SSLParameters parameters = sslSocket.getSSLParameters();
+                parameters.setProtocols(PROTOCOLS);
+                if (target.serverName() != null) {
+                    parameters.setServerNames(List.of(new SNIHostName(target.serverName())));
+                }
+                sslSocket.setSSLParameters(parameters);
+                sslSocket.startHandshake();
+                final Certificate[] certs = sslSocket.getSession().getPeerCertificates();
+                return (X509Certificate) certs[0];
+            }
+        }
+    }
+
+    /**
+     * Fetch the leaf certificates of the given targets in parallel. A failure of one target does not affect the others,
+     * the targets not fetched within the batch timeout are reported as failed.
+     *
+     * @param targets Targets to connect to.
+     * @return Results in the order of the targets.
+     */
+    public List<Result> fetchAll(final List<Target> targets) {
+        return fetchAll(targets, Duration.ZERO);
+    }
+
+    /**
+     * Fetch the leaf certificates of the given targets in parallel, each of them after a random delay up to the given
+     * jitter, so that many targets do not cause a burst of handshakes. A failure of one target does not affect the others,
+     * the targets not fetched within the batch timeout extended by the jitter are reported as failed.
+     *
+     * @param targets Targets to connect to.
+     * @param jitter Maximum random delay before each fetch.
+     * @return Results in the order of the targets.
+     */
+    public List<Result> fetchAll(final List<Target> targets, final Duration jitter) {
+        final long jitterMillis = jitter.toMillis();
+        final long deadline = System.nanoTime() + batchTimeoutNanos + jitter.toNanos();
+        final List<FetchTask> tasks = new ArrayList<>(targets.size());
+        for (final Target target : targets) {
+            final FetchTask task = new FetchTask(target, new Socket());
+            final Executor fetchExecutor = jitterMillis > 0
+                    ? CompletableFuture.delayedExecutor(ThreadLocalRandom.current().nextLong(jitterMillis), TimeUnit.MILLISECONDS, executor)
+                    : executor;
+            task.future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return fetch(target, task.socket);
+                } catch (IOException e) {
+                    throw new CompletionException(e);
+                }
+            }, fetchExecutor);
+            tasks.add(task);
+        }
+
+        final List<Result> results = new ArrayList<>(targets.size());
+        for (final FetchTask task : tasks) {
+            final Target target = task.target;
+            try {
+                results.add(new Result(target, task.future.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS), null));
+            } catch (ExecutionException e) {
+                logger.warn("Unable to fetch certificate of domain: {}, {}", target.domain(), e.getCause().toString());
+                logger.debug("Exception detail: ", e.getCause());
+                results.add(new Result(target, null, errorMessage(e.getCause())));
+            } catch (TimeoutException e) {
+                logger.warn("Unable to fetch certificate of domain: {}, batch timeout elapsed", target.domain());
+                task.cancel();
+                results.add(new Result(target, null, ERROR_TIMEOUT));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                tasks.forEach(FetchTask::cancel);
+                throw new IllegalStateException("Interrupted while fetching certificates", e);
+            }
+        }
+        return results;
+    }
+
+    private static String errorMessage(final Throwable throwable) {
+        if (throwable instanceof SocketTimeoutException) {
+            return ERROR_TIMEOUT;
+        } else if (throwable instanceof UnknownHostException) {
+            return ERROR_UNKNOWN_HOST;
+        } else if (throwable instanceof ConnectException) {
+            return ERROR_CONNECTION_REFUSED;
+        } else if (throwable instanceof SSLException) {
+            return ERROR_HANDSHAKE;
+        }
+        return ERROR_CONNECTION;
+    }
+
+    /**
+     * Fetch of a single target, which may be cancelled by closing its socket, because the cancellation of the future
+     * does not abort a blocking socket read.
+     */
+    private static final class FetchTask {
+
+        private final Target target;
+        private final Socket socket;
+        private Future<X509Certificate> future;
+
+        private FetchTask(final Target target, final Socket socket) {
+            this.target = target;
+            this.socket = socket;
+        }
+
+        private void cancel() {
+            future.cancel(true);
+            try {
+                socket.close();
+            } catch (IOException e) {
+                logger.debug("Unable to close socket of domain: {}", target.domain(), e);
+            }
+        }
+    }
+
+    /**
+     * Target of the certificate fetch.
+     *
+     * @param domain Domain to connect to.
+     * @param port Port, {@link #DEFAULT_PORT} if {@code null}.
+     * @param serverName Server name indication, the domain if {@code null}.
+     */
+    public record Target(String domain, Integer port, String serverName) {
+
+        /**
+         * Create a target of the given domain with the default port and server name.
+         *
+         * @param domain Domain to connect to.
+         * @return Target.
+         */
+        public static Target of(final String domain) {
+            return new Target(domain, null, null);
+        }
+    }
+
+    /**
+     * Result of the certificate fetch.
+     *
+     * @param target Target.
+     * @param certificate Leaf certificate, {@code null} in case of a failure.
+     * @param error Stable description of the failure, {@code null} in case of a success.
+     */
+    public record Result(Target target, X509Certificate certificate, String error) {
+    }
+}
@@ -18,7 +18,6 @@
 
 package com.wultra.app.mobileutilityserver.rest.service;
 
-import com.wultra.app.mobileutilityserver.database.model.CertificateEntity;
 import com.wultra.app.mobileutilityserver.database.repo.CertificateRepository;
 import com.wultra.app.mobileutilityserver.rest.model.converter.CertificateConverter;
 import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
@@ -26,7 +25,7 @@ import jakarta.transaction.Transactional;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
+import java.time.Instant;
 import java.util.List;
 
 /**
@@ -47,23 +46,17 @@ public class CertificateFingerprintService {
     }
 
     /**
-     * Return a collection of SSL pinning fingerprints. In case no fingerprints are present, the method
-     * returns an empty collection.
+     * Return a collection of SSL pinning fingerprints that are not expired. In case no fingerprints are present,
+     * the method returns an empty collection. Domain names are fetched in the same statement as the fingerprints.
      *
      * @param appName App name for which to return fingerprints.
      * @return Collection with SSL pinning fingerprints, possibly empty.
      */
     @Transactional
     public List<CertificateFingerprint> findCertificateFingerprintsByAppName(String appName) {
-        final List<CertificateEntity> fingerprints = repo.findAllByAppName(appName);
-        final List<CertificateFingerprint> result = new ArrayList<>(fingerprints.size());
-        for (final CertificateEntity f: fingerprints) {
-            final CertificateFingerprint fingerprint = converter.convertNamedCertificateFrom(f);
-            if (fingerprint != null) {
-                result.add(fingerprint);
-            }
-        }
-        return result;
+        return repo.findAllFingerprintsByAppNameAndExpiresNotBefore(appName, Instant.now().getEpochSecond()).stream()
+                .map(converter::convertNamedFingerprintFrom)
+                .toList();
     }
 
 }
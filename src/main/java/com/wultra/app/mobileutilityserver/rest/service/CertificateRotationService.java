@@ -0,0 +1,170 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.MobileDomainRepository;
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppNotFoundException;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationCertificatePemRequest;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateEncodingException;
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Service watching certificates of all stored domains for rotation.
+ * <p>
+ * Each stored domain is contacted by {@link CertificateFetcher}, with a random delay to spread the load. When
+ * a domain presents a certificate which is not pinned yet, the certificate is added next to the existing ones, so
+ * the clients receive the new pin while the previous certificate is still valid. Nothing is ever removed, expired
+ * certificates are purged by {@link CertificateCleanupService}. In a cluster, the scheduled check runs on a single
+ * node at a time, see {@link SchedulerLockService}.
+ */
+@Service
+@Slf4j
+public class CertificateRotationService {
+
+    private final MobileDomainRepository mobileDomainRepository;
+    private final CertificateFetcher certificateFetcher;
+    private final CryptographicOperationsService cryptographicOperationsService;
+    private final AdminService adminService;
+    private final SchedulerLockService schedulerLockService;
+    private final Duration jitter;
+
+    private final Counter unchangedCounter;
+    private final Counter addedCounter;
+    private final Counter failedCounter;
+    private final Timer checkTimer;
+
+    @Autowired
+    public CertificateRotationService(
+            final MobileDomainRepository mobileDomainRepository,
+            final CertificateFetcher certificateFetcher,
+            final CryptographicOperationsService cryptographicOperationsService,
+            final AdminService adminService,
+            final SchedulerLockService schedulerLockService,
+            @Value("${mobile-utility-server.certificate.rotation.jitter}") final Duration jitter,
+            final MeterRegistry meterRegistry) {
+
+        this.mobileDomainRepository = mobileDomainRepository;
+        this.certificateFetcher = certificateFetcher;
+        this.cryptographicOperationsService = cryptographicOperationsService;
+        this.adminService = adminService;
+        this.schedulerLockService = schedulerLockService;
+        this.jitter = jitter;
+
+        this.unchangedCounter = checkCounter(meterRegistry, "unchanged");
+        this.addedCounter = checkCounter(meterRegistry, "added");
+        this.failedCounter = checkCounter(meterRegistry, "failed");
+        this.checkTimer = Timer.builder("mobile_utility_server.certificate.rotation.duration")
+                .description("Duration of the check of certificates of all domains")
+                .register(meterRegistry);
+    }
+
+    private static Counter checkCounter(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("mobile_utility_server.certificate.rotation")
+                .description("Checks of domain certificates for rotation")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Scheduled check of certificates of all domains, run on a single node of a cluster.
+     */
+    @Scheduled(cron = "${mobile-utility-server.certificate.rotation.cron}")
+    public void scheduledCheckCertificates() {
+        schedulerLockService.runLocked("certificate-rotation", () -> {
+            logger.debug("Running scheduled check of domain certificates");
+            checkTimer.record(this::checkCertificates);
+        });
+    }
+
+    /**
+     * Check certificates of all domains and pin the new ones.
+     *
+     * @return Number of added certificates.
+     */
+    public int checkCertificates() {
+        // Domain name to app names to pinned fingerprints, the same domain may be pinned by more applications
+        final Map<String, Map<String, Set<String>>> domains = new LinkedHashMap<>();
+        for (final MobileDomainRepository.DomainFingerprint row : mobileDomainRepository.findAllDomainFingerprints()) {
+            final Set<String> fingerprints = domains.computeIfAbsent(row.getDomain(), key -> new HashMap<>())
+                    .computeIfAbsent(row.getAppName(), key -> new HashSet<>());
+            if (row.getFingerprint() != null) {
+                fingerprints.add(row.getFingerprint().toLowerCase());
+            }
+        }
+        if (domains.isEmpty()) {
+            return 0;
+        }
+
+        final List<CertificateFetcher.Target> targets = domains.keySet().stream()
+                .map(CertificateFetcher.Target::of)
+                .toList();
+        final Map<String, List<CreateApplicationCertificatePemRequest>> newCertificates = new TreeMap<>();
+        for (final CertificateFetcher.Result result : certificateFetcher.fetchAll(targets, jitter)) {
+            final String domain = result.target().domain();
+            if (result.certificate() == null) {
+                failedCounter.increment();
+                continue;
+            }
+            try {
+                final String fingerprint = cryptographicOperationsService.computeSHA256Hash(result.certificate().getEncoded()).toLowerCase();
+                final String pem = cryptographicOperationsService.certificateToPem(result.certificate());
+                boolean added = false;
+                for (final Map.Entry<String, Set<String>> app : domains.get(domain).entrySet()) {
+                    if (!app.getValue().contains(fingerprint)) {
+                        final CreateApplicationCertificatePemRequest request = new CreateApplicationCertificatePemRequest();
+                        request.setDomain(domain);
+                        request.setPem(pem);
+                        newCertificates.computeIfAbsent(app.getKey(), key -> new ArrayList<>()).add(request);
+                        added = true;
+                    }
+                }
+                (added ? addedCounter : unchangedCounter).increment();
+            } catch (CertificateEncodingException | NoSuchAlgorithmException e) {
+                logger.warn("Unable to process certificate of domain: {}", domain, e);
+                failedCounter.increment();
+            }
+        }
+
+        int added = 0;
+        for (final Map.Entry<String, List<CreateApplicationCertificatePemRequest>> app : newCertificates.entrySet()) {
+            try {
+                adminService.createApplicationCertificates(app.getKey(), app.getValue());
+                added += app.getValue().size();
+                app.getValue().forEach(request ->
+                        logger.info("New certificate pinned for app: {}, domain: {}", app.getKey(), request.getDomain()));
+            } catch (AppNotFoundException | IOException | NoSuchAlgorithmException e) {
+                logger.warn("Unable to pin new certificates of app: {}", app.getKey(), e);
+            }
+        }
+        logger.info("Checked certificates of {} domains, pinned {} new certificates", domains.size(), added);
+        return added;
+    }
+}
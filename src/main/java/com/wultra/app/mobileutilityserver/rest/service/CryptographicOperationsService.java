@@ -18,18 +18,17 @@
 
 package com.wultra.app.mobileutilityserver.rest.service;
 
-import io.getlime.security.powerauth.crypto.lib.config.PowerAuthConfiguration;
 import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
 import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
 import io.getlime.security.powerauth.crypto.lib.model.exception.GenericCryptoException;
 import io.getlime.security.powerauth.crypto.lib.util.KeyConvertor;
-import io.getlime.security.powerauth.crypto.lib.util.SignatureUtils;
 import lombok.extern.slf4j.Slf4j;
 import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.StringWriter;
 import java.security.*;
 import java.security.cert.CertificateEncodingException;
@@ -46,37 +45,16 @@ import java.util.Base64;
 @Slf4j
 public class CryptographicOperationsService {
 
-    private static final String SECURE_RANDOM_ALGORITHM_NAME = "DEFAULT";
-
     private final KeyGenerator keyGenerator;
     private final KeyConvertor keyConvertor;
 
-    private final SignatureUtils signatureUtils;
-
-    private final SecureRandom secureRandom;
+    private final SigningEngine signingEngine;
 
     @Autowired
-    public CryptographicOperationsService(KeyGenerator keyGenerator, KeyConvertor keyConvertor, SignatureUtils signatureUtils) {
+    public CryptographicOperationsService(KeyGenerator keyGenerator, KeyConvertor keyConvertor, SigningEngine signingEngine) {
         this.keyGenerator = keyGenerator;
         this.keyConvertor = keyConvertor;
-        this.signatureUtils = signatureUtils;
-        this.secureRandom = secureRandom();
-    }
-
-    /**
-     * Get the strong secure random available in the system. Try using Bouncy Castle first with a fallback to new
-     * secure random (log warning).
-     *
-     * @return Secure random instance.
-     */
-    private SecureRandom secureRandom() {
-        try {
-            return SecureRandom.getInstance(SECURE_RANDOM_ALGORITHM_NAME, PowerAuthConfiguration.CRYPTO_PROVIDER_NAME);
-        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
-            logger.warn("Unable to register strong random number generator: {}", e.getMessage());
-            logger.debug("Exception details: ", e);
-            return new SecureRandom();
-        }
+        this.signingEngine = signingEngine;
     }
 
     /**
@@ -109,6 +87,17 @@ public class CryptographicOperationsService {
         return Base64.getEncoder().encodeToString(keyConvertor.convertPrivateKeyToBytes(privateKey));
     }
 
+    /**
+     * Convert Base64 encoded string to private key.
+     * @param privateKeyBase64 Private key encoded in Base64.
+     * @return Private key.
+     * @throws InvalidKeySpecException In case provided private key spec is invalid.
+     * @throws CryptoProviderException In case cryptographic provider fails.
+     */
+    public PrivateKey convertBase64ToPrivateKey(String privateKeyBase64) throws InvalidKeySpecException, CryptoProviderException {
+        return keyConvertor.convertBytesToPrivateKey(Base64.getDecoder().decode(privateKeyBase64));
+    }
+
     /**
      * Convert public key to Base64 encoded string.
      * @param publicKey Public key to be encoded.
@@ -145,8 +134,35 @@ public class CryptographicOperationsService {
      * @throws InvalidKeySpecException In case provided private key spec is invalid.
      */
     public String computeECDSASignature(byte[] signatureBase, String privateKeyBase64) throws GenericCryptoException, InvalidKeyException, CryptoProviderException, InvalidKeySpecException {
-        final PrivateKey privateKey = keyConvertor.convertBytesToPrivateKey(Base64.getDecoder().decode(privateKeyBase64));
-        final byte[] ecdsaSignature = signatureUtils.computeECDSASignature(signatureBase, privateKey, secureRandom);
+        return computeECDSASignature(signatureBase, convertBase64ToPrivateKey(privateKeyBase64));
+    }
+
+    /**
+     * Compute Base64-encoded ECDSA signature with the provided private key.
+     * @param signatureBase Signature data.
+     * @param privateKey Private key.
+     * @return Base64-encoded ECDSA signature.
+     * @throws GenericCryptoException In case cryptographic calculation fails.
+     * @throws InvalidKeyException In case provided private key is invalid.
+     * @throws CryptoProviderException In case cryptographic provider fails.
+     */
+    public String computeECDSASignature(byte[] signatureBase, PrivateKey privateKey) throws GenericCryptoException, InvalidKeyException, CryptoProviderException {
+        final byte[] ecdsaSignature = signingEngine.sign(signatureBase, privateKey);
+        return Base64.getEncoder().encodeToString(ecdsaSignature);
+    }
+
+    /**
+     * Compute Base64-encoded ECDSA signature of the data read from the provided stream. The data is fed to the
+     * signature incrementally, so the signature base does not need to be materialized in a single array.
+     * @param signatureBase Stream with signature data.
+     * @param privateKey Private key.
+     * @return Base64-encoded ECDSA signature.
+     * @throws GenericCryptoException In case cryptographic calculation fails.
+     * @throws InvalidKeyException In case provided private key is invalid.
+     * @throws IOException In case reading of the signature data fails.
+     */
+    public String computeECDSASignature(InputStream signatureBase, PrivateKey privateKey) throws GenericCryptoException, InvalidKeyException, IOException {
+        final byte[] ecdsaSignature = signingEngine.sign(signatureBase, privateKey);
         return Base64.getEncoder().encodeToString(ecdsaSignature);
     }
 }
@@ -0,0 +1,260 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.*;
+import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppException;
+import com.wultra.app.mobileutilityserver.rest.model.request.*;
+import com.wultra.app.mobileutilityserver.rest.model.response.ImportResponse;
+import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.bouncycastle.cert.X509CertificateHolder;
+import org.bouncycastle.openssl.PEMParser;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.security.KeyPair;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * Service importing a whole set of applications, their certificates and versions, and localized texts at once.
+ * <p>
+ * The whole request is validated before anything is written, so the import either fails with all the problems
+ * found, or it is written in a single transaction. Signing keys are assigned before the transaction starts, as a large
+ * import drains the {@link KeyPairPool} and generates the rest of the keys. Records are persisted grouped by their
+ * type, so consecutive inserts into the same table are sent to the database in JDBC batches.
+ */
+@Service
+@Slf4j
+public class ImportService {
+
+    private final MobileAppRepository mobileAppRepository;
+    private final LocalizedTextRepository localizedTextRepository;
+    private final CryptographicOperationsService cryptographicOperationsService;
+    private final KeyPairPool keyPairPool;
+    private final EntityManager entityManager;
+    private final ApplicationEventPublisher applicationEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    @Autowired
+    public ImportService(
+            final MobileAppRepository mobileAppRepository,
+            final LocalizedTextRepository localizedTextRepository,
+            final CryptographicOperationsService cryptographicOperationsService,
+            final KeyPairPool keyPairPool,
+            final EntityManager entityManager,
+            final ApplicationEventPublisher applicationEventPublisher,
+            final TransactionTemplate transactionTemplate,
+            @Value("${mobile-utility-server.import.batch-size}") final int batchSize) {
+
+        this.mobileAppRepository = mobileAppRepository;
+        this.localizedTextRepository = localizedTextRepository;
+        this.cryptographicOperationsService = cryptographicOperationsService;
+        this.keyPairPool = keyPairPool;
+        this.entityManager = entityManager;
+        this.applicationEventPublisher = applicationEventPublisher;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Import the given applications and texts. Neither the applications nor the texts may exist yet.
+     *
+     * @param request Import request.
+     * @return Numbers of imported records.
+     * @throws AppException In case the request is not valid or signing keys could not be generated.
+     */
+    public ImportResponse importApplications(final ImportRequest request) throws AppException {
+        final ImportBatch batch = prepare(request);
+        assignSigningKeys(batch.apps());
+        transactionTemplate.executeWithoutResult(status -> {
+            write(batch);
+            batch.apps().forEach(app ->
+                    applicationEventPublisher.publishEvent(MobileAppChangedEvent.of(app.getName())));
+            if (!batch.texts().isEmpty()) {
+                applicationEventPublisher.publishEvent(new LocalizedTextChangedEvent());
+            }
+        });
+
+        final ImportResponse response = new ImportResponse();
+        response.setApplications(batch.apps().size());
+        response.setDomains(batch.domains().size());
+        response.setCertificates(batch.certificates().size());
+        response.setVersions(batch.versions().size());
+        response.setTexts(batch.texts().size());
+        logger.info("Imported {}", response);
+        return response;
+    }
+
+    /**
+     * Validate the request and convert it to entities without touching the database other than for reading.
+     */
+    private ImportBatch prepare(final ImportRequest request) throws AppException {
+        final List<String> errors = new ArrayList<>();
+        final ImportBatch batch = new ImportBatch(new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+
+        final Set<String> appNames = new HashSet<>();
+        for (final ImportApplicationRequest appRequest : request.getApplications()) {
+            if (!appNames.add(appRequest.getName())) {
+                errors.add("Duplicate application: " + appRequest.getName());
+                continue;
+            }
+            prepareApp(appRequest, batch, errors);
+        }
+        mobileAppRepository.findAllByNameIn(appNames).forEach(app ->
+                errors.add("Application with name already exists: " + app.getName()));
+
+        final Set<LocalizedTextEntity.LocalizedTextId> textIds = new HashSet<>();
+        for (final CreateTextRequest textRequest : request.getTexts()) {
+            final LocalizedTextEntity text = AdminService.convert(textRequest);
+            if (textIds.add(new LocalizedTextEntity.LocalizedTextId(text.getMessageKey(), text.getLanguage()))) {
+                batch.texts().add(text);
+            } else {
+                errors.add("Duplicate text: %s, language: %s".formatted(text.getMessageKey(), text.getLanguage()));
+            }
+        }
+        localizedTextRepository.findAllById(textIds).forEach(text ->
+                errors.add("Text already exists: %s, language: %s".formatted(text.getMessageKey(), text.getLanguage())));
+
+        if (!errors.isEmpty()) {
+            throw new AppException("Import validation failed: " + String.join("; ", errors));
+        }
+        return batch;
+    }
+
+    private void prepareApp(final ImportApplicationRequest request, final ImportBatch batch, final List<String> errors) {
+        final String appName = request.getName();
+        final MobileAppEntity app = new MobileAppEntity();
+        app.setName(appName);
+        app.setDisplayName(request.getDisplayName());
+        batch.apps().add(app);
+
+        final Map<String, MobileDomainEntity> domains = new HashMap<>();
+        final Set<String> fingerprints = new HashSet<>();
+        for (final CreateApplicationCertificatePemRequest certificateRequest : request.getCertificates()) {
+            final String domainName = certificateRequest.getDomain();
+            final X509CertificateHolder x509Cert = parseCertificate(certificateRequest.getPem());
+            if (x509Cert == null) {
+                errors.add("Invalid certificate, appName: %s, domain: %s".formatted(appName, domainName));
+                continue;
+            }
+            final String fingerprint = computeFingerprint(x509Cert);
+            if (!fingerprints.add(domainName + ' ' + fingerprint)) {
+                errors.add("Duplicate certificate, appName: %s, domain: %s, fingerprint: %s".formatted(appName, domainName, fingerprint));
+                continue;
+            }
+
+            final MobileDomainEntity domain = domains.computeIfAbsent(domainName, key -> {
+                final MobileDomainEntity entity = new MobileDomainEntity();
+                entity.setApp(app);
+                entity.setDomain(key);
+                batch.domains().add(entity);
+                return entity;
+            });
+
+            final CertificateEntity certificate = new CertificateEntity();
+            certificate.setDomain(domain);
+            certificate.setPem(certificateRequest.getPem());
+            certificate.setFingerprint(fingerprint);
+            certificate.setExpires(x509Cert.getNotAfter().getTime() / 1000);
+            batch.certificates().add(certificate);
+        }
+
+        final Set<String> versionKeys = new HashSet<>();
+        for (final CreateApplicationVersionRequest versionRequest : request.getVersions()) {
+            if (!versionKeys.add(versionRequest.getPlatform() + " " + versionRequest.getMajorOsVersion())) {
+                errors.add("Duplicate application version, applicationName=%s, platform=%s, majorOsVersion=%d"
+                        .formatted(appName, versionRequest.getPlatform(), versionRequest.getMajorOsVersion()));
+                continue;
+            }
+            final MobileAppVersionEntity version = AdminService.convert(versionRequest);
+            version.setApp(app);
+            batch.versions().add(version);
+        }
+    }
+
+    private static X509CertificateHolder parseCertificate(final String pem) {
+        try (final PEMParser pemParser = new PEMParser(new StringReader(pem))) {
+            return pemParser.readObject() instanceof final X509CertificateHolder x509Cert ? x509Cert : null;
+        } catch (IOException e) {
+            logger.debug("Unable to parse certificate", e);
+            return null;
+        }
+    }
+
+    private String computeFingerprint(final X509CertificateHolder x509Cert) {
+        try {
+            return cryptographicOperationsService.computeSHA256Hash(x509Cert.getEncoded());
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Unable to compute certificate fingerprint", e);
+        }
+    }
+
+    /**
+     * Assign signing keys once the request is known to be valid, not to drain the key pair pool in vain.
+     */
+    private void assignSigningKeys(final List<MobileAppEntity> apps) throws AppException {
+        try {
+            for (final MobileAppEntity app : apps) {
+                final KeyPair keyPair = keyPairPool.take();
+                app.setSigningPrivateKey(cryptographicOperationsService.convertPrivateKeyToBase64(keyPair.getPrivate()));
+                app.setSigningPublicKey(cryptographicOperationsService.convertPublicKeyToBase64(keyPair.getPublic()));
+            }
+        } catch (CryptoProviderException e) {
+            throw new AppException("Error while generating cryptographic keys", e);
+        }
+    }
+
+    private void write(final ImportBatch batch) {
+        final Session session = entityManager.unwrap(Session.class);
+        final Integer originalBatchSize = session.getJdbcBatchSize();
+        session.setJdbcBatchSize(batchSize);
+        try {
+            Stream.of(batch.apps(), batch.domains(), batch.certificates(), batch.versions(), batch.texts())
+                    .flatMap(List::stream)
+                    .forEach(entityManager::persist);
+            entityManager.flush();
+        } finally {
+            session.setJdbcBatchSize(originalBatchSize);
+        }
+    }
+
+    /**
+     * Entities to be written, each list in the order of insertion.
+     */
+    private record ImportBatch(
+            List<MobileAppEntity> apps,
+            List<MobileDomainEntity> domains,
+            List<CertificateEntity> certificates,
+            List<MobileAppVersionEntity> versions,
+            List<LocalizedTextEntity> texts) {
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.security.KeyPair;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Pool of signing key pairs generated ahead of time, so the creation of an application does not wait for the key
+ * generation within its transaction.
+ * <p>
+ * A background thread of the minimal priority keeps the pool filled up to the high-water mark. When the pool is
+ * empty, e.g. during a bulk provisioning, the key pair is generated by the caller. The high-water mark {@code 0}
+ * disables the pool.
+ */
+@Component
+@Slf4j
+public class KeyPairPool implements SmartLifecycle {
+
+    private final CryptographicOperationsService cryptographicOperationsService;
+
+    private final int highWaterMark;
+
+    private final BlockingQueue<KeyPair> keyPairs;
+
+    private final Counter missCounter;
+
+    private volatile Thread generator;
+
+    @Autowired
+    public KeyPairPool(
+            final CryptographicOperationsService cryptographicOperationsService,
+            @Value("${mobile-utility-server.key-pair-pool.high-water-mark}") final int highWaterMark,
+            final MeterRegistry meterRegistry) {
+
+        this.cryptographicOperationsService = cryptographicOperationsService;
+        this.highWaterMark = highWaterMark;
+        this.keyPairs = highWaterMark > 0 ? new ArrayBlockingQueue<>(highWaterMark) : null;
+        this.missCounter = Counter.builder("mobile_utility_server.key_pair_pool.miss")
+                .description("Key pairs generated by the caller because the pool was empty")
+                .register(meterRegistry);
+        Gauge.builder("mobile_utility_server.key_pair_pool.depth", this, KeyPairPool::depth)
+                .description("Number of pre-generated key pairs in the pool")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Take a pre-generated key pair, or generate a new one if the pool is empty.
+     *
+     * @return EC key pair.
+     * @throws CryptoProviderException Cryptographic provider failed to generate the key pair.
+     */
+    public KeyPair take() throws CryptoProviderException {
+        final KeyPair keyPair = keyPairs != null ? keyPairs.poll() : null;
+        if (keyPair != null) {
+            return keyPair;
+        }
+        missCounter.increment();
+        return cryptographicOperationsService.generateKeyPair();
+    }
+
+    /**
+     * Return the number of pre-generated key pairs.
+     *
+     * @return Pool depth.
+     */
+    int depth() {
+        return keyPairs != null ? keyPairs.size() : 0;
+    }
+
+    @Override
+    public void start() {
+        if (keyPairs == null) {
+            logger.info("Key pair pool is disabled");
+            return;
+        }
+
+        final Thread thread = new Thread(this::generate, "mus-key-pair-pool");
+        thread.setDaemon(true);
+        thread.setPriority(Thread.MIN_PRIORITY);
+        generator = thread;
+        thread.start();
+        logger.info("Started key pair pool, high-water mark: {}", highWaterMark);
+    }
+
+    @Override
+    public void stop() {
+        final Thread thread = generator;
+        generator = null;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return generator != null;
+    }
+
+    private void generate() {
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                // Blocks while the pool is full
+                keyPairs.put(cryptographicOperationsService.generateKeyPair());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (CryptoProviderException | RuntimeException e) {
+                logger.error("Unable to generate key pair for the pool", e);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.LocalizedTextEntity;
+import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory catalog of localized texts.
+ * <p>
+ * Texts are resolved by the language of the requested locale with a fallback to English, the fallback text of each
+ * message key is resolved when the catalog is loaded. Stored languages are ISO 639-1 two-letter codes, so regional
+ * variants such as {@code de-AT} resolve to {@code de}. The catalog is reloaded when {@link LocalizedTextChangedEvent}
+ * is committed and after the configured time-to-live to pick up changes made directly in the database.
+ */
+@Service
+@Slf4j
+public class LocalizedTextCatalog {
+
+    private static final String FALLBACK_LANGUAGE = Locale.ENGLISH.getLanguage();
+
+    private final LocalizedTextRepository localizedTextRepository;
+
+    private final long ttlMillis;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    /**
+     * Incremented on each eviction, a catalog loaded concurrently with an eviction is not trusted.
+     */
+    private final AtomicLong evictions = new AtomicLong();
+
+    private final Counter hitCounter;
+    private final Counter fallbackCounter;
+    private final Counter missCounter;
+
+    private volatile Catalog catalog;
+
+    @Autowired
+    public LocalizedTextCatalog(
+            final LocalizedTextRepository localizedTextRepository,
+            @Value("${mobile-utility-server.cache.localized-text.ttl}") final Duration ttl,
+            final MeterRegistry meterRegistry) {
+
+        this.localizedTextRepository = localizedTextRepository;
+        this.ttlMillis = ttl.toMillis();
+        this.hitCounter = lookupCounter(meterRegistry, "hit");
+        this.fallbackCounter = lookupCounter(meterRegistry, "fallback");
+        this.missCounter = lookupCounter(meterRegistry, "miss");
+    }
+
+    private static Counter lookupCounter(final MeterRegistry meterRegistry, final String result) {
+        return Counter.builder("mobile_utility_server.localized_text.lookup")
+                .description("Lookups of localized texts by result, fallback means the English text was used")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Find a localized text.
+     *
+     * @param messageKey Key of the localized text.
+     * @param locale Requested locale.
+     * @return Text in the language of the locale, English text as a fallback or {@code null} if there is none.
+     */
+    public String find(final String messageKey, final Locale locale) {
+        final MessageTexts texts = catalog().messages().get(messageKey);
+        if (texts == null) {
+            logger.debug("Localized text key: {} not found", messageKey);
+            missCounter.increment();
+            return null;
+        }
+
+        final String text = texts.byLanguage().get(locale.getLanguage());
+        if (text != null) {
+            hitCounter.increment();
+            return text;
+        }
+
+        logger.debug("Localized text key: {} not found for locale: {}, falling back to EN", messageKey, locale);
+        if (texts.fallback() != null) {
+            fallbackCounter.increment();
+        } else {
+            missCounter.increment();
+        }
+        return texts.fallback();
+    }
+
+    /**
+     * Evict the catalog when localized texts change.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onLocalizedTextChanged(final LocalizedTextChangedEvent event) {
+        logger.debug("Evicting localized text catalog, {}", event);
+        evictions.incrementAndGet();
+        catalog = null;
+    }
+
+    /**
+     * Return the current catalog. An expired catalog is reloaded by a single thread, other threads keep using
+     * the expired one meanwhile.
+     */
+    private Catalog catalog() {
+        final long now = System.currentTimeMillis();
+        final Catalog current = catalog;
+        if (current != null && now < current.validUntil()) {
+            return current;
+        }
+        if (current != null && !reloadLock.tryLock()) {
+            return current;
+        }
+        if (current == null) {
+            reloadLock.lock();
+        }
+        try {
+            final Catalog reloaded = catalog;
+            if (reloaded != null && reloaded != current && now < reloaded.validUntil()) {
+                return reloaded;
+            }
+            final Catalog loaded = load(now);
+            catalog = loaded;
+            return loaded;
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    private Catalog load(final long now) {
+        final long evictionsBefore = evictions.get();
+        final Map<String, Map<String, String>> texts = new HashMap<>();
+        for (final LocalizedTextEntity text : localizedTextRepository.findAll()) {
+            texts.computeIfAbsent(text.getMessageKey(), key -> new HashMap<>())
+                    .put(text.getLanguage(), text.getText());
+        }
+
+        final Map<String, MessageTexts> messages = new HashMap<>(texts.size());
+        texts.forEach((messageKey, byLanguage) ->
+                messages.put(messageKey, new MessageTexts(Map.copyOf(byLanguage), byLanguage.get(FALLBACK_LANGUAGE))));
+        logger.debug("Loaded localized text catalog, message keys: {}", messages.size());
+        // Evicted while loading, use the catalog for this lookup only
+        final long validUntil = evictions.get() == evictionsBefore ? now + ttlMillis : 0;
+        return new Catalog(Map.copyOf(messages), validUntil);
+    }
+
+    private record Catalog(Map<String, MessageTexts> messages, long validUntil) {
+    }
+
+    /**
+     * Texts of a message key.
+     *
+     * @param byLanguage Texts by ISO 639-1 two-letter language code.
+     * @param fallback English text, may be {@code null}.
+     */
+    private record MessageTexts(Map<String, String> byLanguage, String fallback) {
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * Event published when configuration of a mobile application (certificates, domains or versions) changes.
+ * <p>
+ * The event is published within the admin transaction, listeners keeping in-memory state should evict it after commit.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MobileAppChangedEvent {
+
+    /**
+     * Name of the changed application, {@code null} when the change affects all applications.
+     */
+    private final String appName;
+
+    /**
+     * Create an event for a single application.
+     *
+     * @param appName App name.
+     * @return Event.
+     */
+    public static MobileAppChangedEvent of(final String appName) {
+        return new MobileAppChangedEvent(appName);
+    }
+
+    /**
+     * Create an event affecting all applications, e.g. purge of expired certificates.
+     *
+     * @return Event.
+     */
+    public static MobileAppChangedEvent allApps() {
+        return new MobileAppChangedEvent(null);
+    }
+
+    /**
+     * Check whether the event affects all applications.
+     *
+     * @return True if all applications are affected.
+     */
+    public boolean isAllApps() {
+        return appName == null;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Listener bumping the configuration generation of the changed applications within the transaction of the change.
+ * <p>
+ * Localized texts may be referenced by any application, so their change bumps the generation of all applications.
+ * Events published outside a transaction, e.g. received from the other nodes of a cluster, are ignored.
+ */
+@Component
+@AllArgsConstructor
+@Slf4j
+public class MobileAppGenerationListener {
+
+    private final MobileAppRepository mobileAppRepository;
+
+    /**
+     * Bump the generation of the changed application.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onMobileAppChanged(final MobileAppChangedEvent event) {
+        final int updated = event.isAllApps()
+                ? mobileAppRepository.incrementGeneration()
+                : mobileAppRepository.incrementGenerationByName(event.getAppName());
+        logger.debug("Bumped generation of {} applications, {}", updated, event);
+    }
+
+    /**
+     * Bump the generation of all applications.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onLocalizedTextChanged(final LocalizedTextChangedEvent event) {
+        final int updated = mobileAppRepository.incrementGeneration();
+        logger.debug("Bumped generation of {} applications, {}", updated, event);
+    }
+}
@@ -17,42 +17,28 @@
  */
 package com.wultra.app.mobileutilityserver.rest.service;
 
-import com.wultra.app.mobileutilityserver.database.model.LocalizedTextEntity;
-import com.wultra.app.mobileutilityserver.database.model.MobileAppEntity;
 import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
-import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
-import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
-import com.wultra.app.mobileutilityserver.database.repo.MobileAppVersionRepository;
 import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
-import org.codehaus.plexus.util.StringUtils;
 import org.springframework.context.i18n.LocaleContextHolder;
-import org.springframework.dao.IncorrectResultSizeDataAccessException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.Locale;
 import java.util.Optional;
-import java.util.function.Supplier;
 
 /**
- * Service acting as a DAO for mobile application related objects.
+ * Service providing mobile application related objects from the in-memory {@link MobileAppSnapshot}.
  *
  * @author Petr Dvorak, petr@wultra.com
  */
 @Service
-@Transactional(readOnly = true)
 @AllArgsConstructor
 @Slf4j
 public class MobileAppService {
 
-    private final MobileAppRepository mobileAppRepository;
-
-    private final MobileAppVersionRepository mobileAppVersionRepository;
-
-    private final LocalizedTextRepository localizedTextRepository;
+    private final MobileAppSnapshotService mobileAppSnapshotService;
+    private final LocalizedTextCatalog localizedTextCatalog;
+    private final AppInitMetrics appInitMetrics;
 
     /**
      * Checks if an app with a provided name exists.
@@ -60,56 +46,55 @@ public class MobileAppService {
      * @return True in case the app with given name exists, false otherwise.
      */
     public boolean appExists(String appName) {
-        return mobileAppRepository.existsByName(appName);
+        return mobileAppSnapshotService.find(appName).isPresent();
     }
 
     /**
-     * Return a private key (Base64 encoded value) of an app with provided app name.
+     * Return a public key (Base64 encoded value) of an app with provided app name.
      *
      * @param appName App name.
-     * @return Private key encoded as Base64 representation of the embedded big integer, or null
+     * @return Public key encoded as Base64 representation of the encoded EC point, or null
      * if app with provided name does not exist.
      */
-    public String privateKey(String appName) {
-        final MobileAppEntity mobileAppEntity = mobileAppRepository.findFirstByName(appName);
-        if (mobileAppEntity == null) {
-            return null;
-        }
-        return mobileAppEntity.getSigningPrivateKey();
+    public String publicKey(String appName) {
+        return mobileAppSnapshotService.find(appName)
+                .map(MobileAppSnapshot::getSigningPublicKey)
+                .orElse(null);
     }
 
     /**
-     * Return a private key (Base64 encoded value) of an app with provided app name.
+     * Verify application version.
      *
-     * @param appName App name.
-     * @return Private key encoded as Base64 representation of the embedded big integer, or null
-     * if app with provided name does not exist.
+     * @param request verify request
+     * @return verify response or {@code null} if feature disabled
      */
-    public String publicKey(String appName) {
-        final MobileAppEntity mobileAppEntity = mobileAppRepository.findFirstByName(appName);
-        if (mobileAppEntity == null) {
-            return null;
+    public VerifyVersionResult verifyVersion(final VerifyVersionRequest request) {
+        final Optional<MobileAppSnapshot> app = mobileAppSnapshotService.find(request.getApplicationName());
+        if (app.isEmpty()) {
+            logger.info("Application name: {} does not exist, returning OK", request.getApplicationName());
+            return VerifyVersionResult.ok();
         }
-        return mobileAppEntity.getSigningPublicKey();
+        return verifyVersion(app.get(), request);
     }
 
     /**
-     * Verify application version.
+     * Verify application version against the rules of the given application snapshot.
      *
+     * @param app application snapshot
      * @param request verify request
-     * @return verify response or {@code null} if feature disabled
+     * @return verify response
      */
-    public VerifyVersionResult verifyVersion(final VerifyVersionRequest request) {
+    public VerifyVersionResult verifyVersion(final MobileAppSnapshot app, final VerifyVersionRequest request) {
         final String applicationName = request.getApplicationName();
         final MobileAppVersionEntity.Platform platform = convert(request.getPlatform());
-        final int majorSystemVersion = new DefaultArtifactVersion(request.getSystemVersion()).getMajorVersion();
-        final Optional<MobileAppVersionEntity> applicationVersion = findApplicationVersion(applicationName, platform, majorSystemVersion);
-        if (applicationVersion.isEmpty()) {
+        final int majorSystemVersion = VersionRuleMatcher.majorVersion(request.getSystemVersion());
+        final VersionRuleMatcher.CompiledRule applicationVersion = app.getVersionRuleMatcher().find(platform, majorSystemVersion);
+        if (applicationVersion == null) {
             logger.info("Application name: {}, platform: {} is not configured, returning OK", applicationName, platform);
             return VerifyVersionResult.ok();
         }
 
-        return verifyVersion(applicationVersion.get(), request);
+        return verifyVersion(applicationVersion, appInitMetrics.appTag(app.getName()), request);
     }
 
     private static MobileAppVersionEntity.Platform convert(final VerifyVersionRequest.Platform platform) {
@@ -119,71 +104,38 @@ public class MobileAppService {
         };
     }
 
-    private Optional<MobileAppVersionEntity> findApplicationVersion(final String applicationName, final MobileAppVersionEntity.Platform platform, final int majorSystemVersion) {
-        final Optional<MobileAppVersionEntity> applicationVersion = findFailSafe(() ->
-                mobileAppVersionRepository.findFirstByApplicationNameAndPlatformAndMajorOsVersion(applicationName, platform, majorSystemVersion));
-        if (applicationVersion.isPresent()) {
-            logger.debug("Found exact match for applicationName: {}, platform: {} and majorSystemVersion: {}", applicationName, platform, majorSystemVersion);
-            return applicationVersion;
-        }
-        logger.debug("Looking for applicationName: {} and platform: {} without specific majorSystemVersion.", applicationName, platform);
-        return findFailSafe(() -> mobileAppVersionRepository.findFirstByApplicationNameAndPlatform(applicationName, platform));
-    }
-
-    private static Optional<MobileAppVersionEntity> findFailSafe(final Supplier<Optional<MobileAppVersionEntity>> supplier) {
-        try {
-            return supplier.get();
-        } catch (IncorrectResultSizeDataAccessException e) {
-            // should be validated by admin API, but fail-safe routine, because unique index not working due to nullable major OS version
-            logger.warn("Misconfigured application versions, got more results: {}", e.getMessage());
-            logger.debug("Misconfigured application versions, got more results", e);
-            return Optional.empty();
-        }
-    }
-
-    private VerifyVersionResult verifyVersion(final MobileAppVersionEntity applicationVersion, final VerifyVersionRequest request) {
-        logger.debug("Verifying {}, {} ", applicationVersion, request);
-        final DefaultArtifactVersion requiredVersion = parseVersion(applicationVersion.getRequiredVersion());
-        final DefaultArtifactVersion suggestedVersion = parseVersion(applicationVersion.getSuggestedVersion());
-        final DefaultArtifactVersion currentVersion = parseVersion(request.getApplicationVersion());
+    private VerifyVersionResult verifyVersion(final VersionRuleMatcher.CompiledRule applicationVersion, final String appTag, final VerifyVersionRequest request) {
+        logger.debug("Verifying {}, {} ", applicationVersion.source(), request);
+        final VersionRuleMatcher.CompiledVersion requiredVersion = applicationVersion.requiredVersion();
+        final VersionRuleMatcher.CompiledVersion suggestedVersion = applicationVersion.suggestedVersion();
+        final String currentVersion = request.getApplicationVersion();
+        final long currentVersionPacked = VersionRuleMatcher.pack(currentVersion);
 
-        if (requiredVersion != null && requiredVersion.compareTo(currentVersion) > 0) {
+        if (requiredVersion != null && requiredVersion.isNewerThan(currentVersion, currentVersionPacked)) {
             return VerifyVersionResult.builder()
                     .update(VerifyVersionResult.Update.FORCED)
-                    .message(fetchMessage(applicationVersion.getMessageKey()))
+                    .message(fetchMessage(applicationVersion.source().getMessageKey(), appTag))
                     .build();
         }
 
-        if (suggestedVersion != null && suggestedVersion.compareTo(currentVersion) > 0) {
+        if (suggestedVersion != null && suggestedVersion.isNewerThan(currentVersion, currentVersionPacked)) {
             return VerifyVersionResult.builder()
                     .update(VerifyVersionResult.Update.SUGGESTED)
-                    .message(fetchMessage(applicationVersion.getMessageKey()))
+                    .message(fetchMessage(applicationVersion.source().getMessageKey(), appTag))
                     .build();
         }
 
         return VerifyVersionResult.ok();
     }
 
-    private String fetchMessage(final String key) {
+    private String fetchMessage(final String key, final String appTag) {
         if (key == null) {
             return null;
         }
-        final Locale locale = LocaleContextHolder.getLocale();
-        final Optional<LocalizedTextEntity> localizedText = localizedTextRepository.findByMessageKeyAndLocale(key, locale);
-        if (localizedText.isPresent()) {
-            return localizedText.get().getText();
-        }
-
-        logger.debug("Localized text key: {} not found for locale: {}, falling back to EN", key, locale);
-        return localizedTextRepository.findByMessageKeyAndLocale(key, Locale.ENGLISH)
-                .map(LocalizedTextEntity::getText)
-                .orElse(null);
-    }
-
-    private static DefaultArtifactVersion parseVersion(final String version) {
-        if (StringUtils.isEmpty(version)) {
-            return null;
-        }
-        return new DefaultArtifactVersion(version);
+        final long start = System.nanoTime();
+        final String message = localizedTextCatalog.find(key, LocaleContextHolder.getLocale());
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_TEXT_LOOKUP, appTag,
+                message != null ? AppInitMetrics.OUTCOME_FOUND : AppInitMetrics.OUTCOME_NOT_FOUND, start);
+        return message;
     }
 }
@@ -0,0 +1,111 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.security.PrivateKey;
+import java.util.List;
+
+/**
+ * Immutable in-memory snapshot of everything needed to answer app initialization of a single application.
+ */
+@Getter
+@ToString
+public class MobileAppSnapshot {
+
+    private final String name;
+
+    /**
+     * Generation of the application configuration the snapshot was loaded from.
+     */
+    private final long generation;
+
+    /**
+     * Signing private key ready to be used, {@code null} if the stored key is missing or invalid.
+     */
+    @ToString.Exclude
+    private final PrivateKey signingPrivateKey;
+
+    private final String signingPublicKey;
+
+    private final List<CertificateFingerprint> fingerprints;
+
+    /**
+     * Unix timestamp in seconds after which the first of the fingerprints expires, {@link Long#MAX_VALUE} if none.
+     */
+    private final long fingerprintsExpire;
+
+    private final List<VersionRule> versionRules;
+
+    /**
+     * Version rules compiled for fast lookup.
+     */
+    @ToString.Exclude
+    private final VersionRuleMatcher versionRuleMatcher;
+
+    @Builder
+    private MobileAppSnapshot(
+            @lombok.NonNull final String name,
+            final long generation,
+            final PrivateKey signingPrivateKey,
+            final String signingPublicKey,
+            @lombok.NonNull final List<CertificateFingerprint> fingerprints,
+            @lombok.NonNull final List<VersionRule> versionRules) {
+
+        this.name = name;
+        this.generation = generation;
+        this.signingPrivateKey = signingPrivateKey;
+        this.signingPublicKey = signingPublicKey;
+        this.fingerprints = List.copyOf(fingerprints);
+        this.fingerprintsExpire = fingerprints.stream()
+                .mapToLong(CertificateFingerprint::getExpires)
+                .min()
+                .orElse(Long.MAX_VALUE);
+        this.versionRules = List.copyOf(versionRules);
+        this.versionRuleMatcher = VersionRuleMatcher.compile(name, this.versionRules);
+    }
+
+    /**
+     * Version rule of the application, see {@link MobileAppVersionEntity}.
+     */
+    @Getter
+    @ToString
+    @Builder
+    public static class VersionRule {
+
+        @lombok.NonNull
+        private final MobileAppVersionEntity.Platform platform;
+
+        /**
+         * Major operation system version, may be {@code null} to match all.
+         */
+        private final Integer majorOsVersion;
+
+        private final String suggestedVersion;
+
+        private final String requiredVersion;
+
+        private final String messageKey;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.MobileAppEntity;
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppVersionRepository;
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.security.PrivateKey;
+import java.security.spec.InvalidKeySpecException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Loader of {@link MobileAppSnapshot} from the database.
+ */
+@Component
+@Transactional(readOnly = true)
+@AllArgsConstructor
+@Slf4j
+public class MobileAppSnapshotLoader {
+
+    private final MobileAppRepository mobileAppRepository;
+    private final MobileAppVersionRepository mobileAppVersionRepository;
+
+    private final CertificateFingerprintService certificateFingerprintService;
+    private final CryptographicOperationsService cryptographicOperationsService;
+
+    private final AppInitMetrics appInitMetrics;
+
+    /**
+     * Load snapshot of an application with the given name.
+     *
+     * @param appName App name.
+     * @return Snapshot or empty if the application does not exist.
+     */
+    public Optional<MobileAppSnapshot> load(final String appName) {
+        long start = System.nanoTime();
+        final MobileAppEntity mobileAppEntity = mobileAppRepository.findFirstByName(appName);
+        if (mobileAppEntity == null) {
+            appInitMetrics.recordStage(AppInitMetrics.STAGE_APP_LOAD, AppInitMetrics.UNKNOWN_APP, AppInitMetrics.OUTCOME_NOT_FOUND, start);
+            logger.debug("Application name: {} not found, no snapshot loaded", appName);
+            return Optional.empty();
+        }
+        final String appTag = appInitMetrics.appTag(appName);
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_APP_LOAD, appTag, AppInitMetrics.OUTCOME_FOUND, start);
+
+        start = System.nanoTime();
+        final List<CertificateFingerprint> fingerprints = certificateFingerprintService.findCertificateFingerprintsByAppName(appName);
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_FINGERPRINT_LOAD, appTag, AppInitMetrics.OUTCOME_OK, start);
+
+        start = System.nanoTime();
+        final List<MobileAppSnapshot.VersionRule> versionRules = new ArrayList<>();
+        mobileAppVersionRepository.findByApplicationName(appName).forEach(it ->
+                versionRules.add(convert(it)));
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_VERSION_RULE_LOAD, appTag, AppInitMetrics.OUTCOME_OK, start);
+
+        start = System.nanoTime();
+        final PrivateKey signingPrivateKey = convertPrivateKey(mobileAppEntity);
+        appInitMetrics.recordStage(AppInitMetrics.STAGE_PRIVATE_KEY_LOAD, appTag,
+                signingPrivateKey != null ? AppInitMetrics.OUTCOME_OK : AppInitMetrics.OUTCOME_FAILED, start);
+
+        final MobileAppSnapshot snapshot = MobileAppSnapshot.builder()
+                .name(mobileAppEntity.getName())
+                .generation(mobileAppEntity.getGeneration())
+                .signingPrivateKey(signingPrivateKey)
+                .signingPublicKey(mobileAppEntity.getSigningPublicKey())
+                .fingerprints(fingerprints)
+                .versionRules(versionRules)
+                .build();
+        logger.debug("Loaded snapshot: {}", snapshot);
+        return Optional.of(snapshot);
+    }
+
+    private PrivateKey convertPrivateKey(final MobileAppEntity source) {
+        final String privateKeyBase64 = source.getSigningPrivateKey();
+        if (privateKeyBase64 == null) {
+            logger.warn("Missing signing private key, appName: {}", source.getName());
+            return null;
+        }
+        try {
+            return cryptographicOperationsService.convertBase64ToPrivateKey(privateKeyBase64);
+        } catch (InvalidKeySpecException | CryptoProviderException | IllegalArgumentException ex) {
+            logger.error("Invalid signing private key, appName: {}", source.getName(), ex);
+            return null;
+        }
+    }
+
+    private static MobileAppSnapshot.VersionRule convert(final MobileAppVersionEntity source) {
+        return MobileAppSnapshot.VersionRule.builder()
+                .platform(source.getPlatform())
+                .majorOsVersion(source.getMajorOsVersion())
+                .suggestedVersion(source.getSuggestedVersion())
+                .requiredVersion(source.getRequiredVersion())
+                .messageKey(source.getMessageKey())
+                .build();
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Service holding {@link MobileAppSnapshot} of the applications in memory.
+ * <p>
+ * Snapshots are loaded lazily, evicted when {@link MobileAppChangedEvent} is committed and reloaded after the configured
+ * time-to-live to pick up changes made directly in the database. A snapshot is also reloaded as soon as one of its
+ * fingerprints expires, so expired fingerprints are never served. Non-existing applications are not cached.
+ * <p>
+ * A snapshot is loaded by a single thread, concurrent callers wait for its future. No monitor is held while loading,
+ * so the loading does not pin the carrier thread of a virtual thread nor blocks loading of other applications.
+ */
+@Service
+@Slf4j
+public class MobileAppSnapshotService {
+
+    private final MobileAppSnapshotLoader mobileAppSnapshotLoader;
+
+    private final long ttlMillis;
+
+    /**
+     * Snapshots by app name, a future is not done while the snapshot is being loaded.
+     */
+    private final ConcurrentMap<String, CompletableFuture<CachedSnapshot>> snapshots = new ConcurrentHashMap<>();
+
+    @Autowired
+    public MobileAppSnapshotService(
+            final MobileAppSnapshotLoader mobileAppSnapshotLoader,
+            @Value("${mobile-utility-server.cache.app-snapshot.ttl}") final Duration ttl) {
+
+        this.mobileAppSnapshotLoader = mobileAppSnapshotLoader;
+        this.ttlMillis = ttl.toMillis();
+    }
+
+    /**
+     * Find snapshot of an application with the given name.
+     *
+     * @param appName App name.
+     * @return Snapshot or empty if the application does not exist.
+     */
+    public Optional<MobileAppSnapshot> find(final String appName) {
+        if (appName == null) {
+            return Optional.empty();
+        }
+
+        while (true) {
+            final long now = System.currentTimeMillis();
+            final CompletableFuture<CachedSnapshot> current = snapshots.get(appName);
+            if (current != null) {
+                final boolean loadedMeanwhile = !current.isDone();
+                final CachedSnapshot cached = join(current);
+                if (cached != null && cached.isValid(now)) {
+                    return Optional.of(cached.snapshot());
+                }
+                if (loadedMeanwhile && cached == null && !current.isCompletedExceptionally()) {
+                    // Not found by the load we waited for
+                    return Optional.empty();
+                }
+            }
+
+            final CompletableFuture<CachedSnapshot> loading = new CompletableFuture<>();
+            final boolean installed = current == null
+                    ? snapshots.putIfAbsent(appName, loading) == null
+                    : snapshots.replace(appName, current, loading);
+            if (installed) {
+                return Optional.ofNullable(load(appName, now, loading))
+                        .map(CachedSnapshot::snapshot);
+            }
+            // Another thread started loading meanwhile, wait for it
+        }
+    }
+
+    private CachedSnapshot load(final String appName, final long now, final CompletableFuture<CachedSnapshot> loading) {
+        final CachedSnapshot loaded;
+        try {
+            loaded = mobileAppSnapshotLoader.load(appName)
+                    .map(it -> new CachedSnapshot(it, validUntil(it, now)))
+                    .orElse(null);
+        } catch (RuntimeException ex) {
+            snapshots.remove(appName, loading);
+            loading.completeExceptionally(ex);
+            throw ex;
+        }
+
+        if (loaded == null) {
+            snapshots.remove(appName, loading);
+        }
+        loading.complete(loaded);
+        return loaded;
+    }
+
+    private static CachedSnapshot join(final CompletableFuture<CachedSnapshot> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            // Loading by another thread failed, try loading again
+            logger.debug("Loading of snapshot failed, {}", ex.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Evict snapshots affected by the committed change.
+     *
+     * @param event Change event.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onMobileAppChanged(final MobileAppChangedEvent event) {
+        logger.debug("Evicting snapshots, {}", event);
+        if (event.isAllApps()) {
+            snapshots.clear();
+        } else {
+            snapshots.remove(event.getAppName());
+        }
+    }
+
+    private long validUntil(final MobileAppSnapshot snapshot, final long now) {
+        final long fingerprintsExpire = snapshot.getFingerprintsExpire();
+        if (fingerprintsExpire >= Long.MAX_VALUE / 1000 - 1) {
+            return now + ttlMillis;
+        }
+        // Fingerprint is valid until the end of its expiration second
+        return Math.min(now + ttlMillis, (fingerprintsExpire + 1) * 1000);
+    }
+
+    private record CachedSnapshot(MobileAppSnapshot snapshot, long validUntil) {
+
+        boolean isValid(final long now) {
+            return now < validUntil;
+        }
+    }
+}
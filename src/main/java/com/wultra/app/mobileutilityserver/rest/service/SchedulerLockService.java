@@ -0,0 +1,116 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.SchedulerLockRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Service running scheduled jobs on a single node of a cluster.
+ * <p>
+ * Before a job runs, its lock is acquired by a conditional update of the table {@code mus_scheduler_lock}, or by
+ * an insert when the job runs for the first time. Nodes failing to acquire the lock skip the run. The lock is held
+ * at most for the configured duration, so a node crashed while running the job does not block it forever, and at
+ * least for the configured duration, so the nodes whose clock is behind do not repeat a quick run. The clocks of
+ * the nodes should not differ by more than the minimal duration.
+ */
+@Service
+@Slf4j
+public class SchedulerLockService {
+
+    private final SchedulerLockRepository schedulerLockRepository;
+    private final Duration lockAtMostFor;
+    private final Duration lockAtLeastFor;
+    private final String lockedBy;
+
+    @Autowired
+    public SchedulerLockService(
+            final SchedulerLockRepository schedulerLockRepository,
+            @Value("${mobile-utility-server.scheduler.lock.at-most-for}") final Duration lockAtMostFor,
+            @Value("${mobile-utility-server.scheduler.lock.at-least-for}") final Duration lockAtLeastFor) {
+
+        this.schedulerLockRepository = schedulerLockRepository;
+        this.lockAtMostFor = lockAtMostFor;
+        this.lockAtLeastFor = lockAtLeastFor;
+        this.lockedBy = hostName();
+    }
+
+    private static String hostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            logger.warn("Unable to resolve host name, {}", e.getMessage());
+            return "unknown";
+        }
+    }
+
+    /**
+     * Run the given job unless its lock is held by another node.
+     *
+     * @param name Lock name, unique for each job.
+     * @param job Job to run.
+     * @return True if the job has been run, false if skipped.
+     */
+    public boolean runLocked(final String name, final Runnable job) {
+        final LocalDateTime lockedAt = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        if (!lock(name, lockedAt)) {
+            logger.debug("Lock: {} is held by another node, skipping the job", name);
+            return false;
+        }
+
+        logger.debug("Acquired lock: {}", name);
+        try {
+            job.run();
+            return true;
+        } finally {
+            final LocalDateTime minLockUntil = lockedAt.plus(lockAtLeastFor);
+            final LocalDateTime now = LocalDateTime.now();
+            final LocalDateTime lockUntil = now.isAfter(minLockUntil) ? now : minLockUntil;
+            if (schedulerLockRepository.unlock(name, lockUntil, lockedAt, lockedBy) == 0) {
+                logger.warn("Lock: {} has been acquired by another node meanwhile, the job took longer than {}", name, lockAtMostFor);
+            }
+        }
+    }
+
+    private boolean lock(final String name, final LocalDateTime lockedAt) {
+        final LocalDateTime lockUntil = lockedAt.plus(lockAtMostFor);
+        if (schedulerLockRepository.lock(name, lockUntil, lockedAt, lockedBy) > 0) {
+            return true;
+        }
+        if (schedulerLockRepository.existsById(name)) {
+            return false;
+        }
+        try {
+            return schedulerLockRepository.insert(name, lockUntil, lockedAt, lockedBy) > 0;
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Lock: {} has been created by another node meanwhile", name);
+            return false;
+        }
+    }
+}
@@ -0,0 +1,215 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.getlime.security.powerauth.crypto.lib.config.PowerAuthConfiguration;
+import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import io.getlime.security.powerauth.crypto.lib.model.exception.GenericCryptoException;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * ECDSA signing engine backed by a striped pool of {@link Signature} and {@link SecureRandom} instances.
+ * <p>
+ * Each stripe is confined to one thread at a time by its lock, so neither the signature objects nor the random
+ * generators are shared between concurrent requests. A caller takes the first free stripe and waits only when all
+ * the stripes are busy.
+ * <p>
+ * In the deterministic mode, the nonce is derived from the private key and the message digest according to RFC 6979,
+ * so no random generator is needed. The signature stays a regular DER-encoded ECDSA signature.
+ */
+@Component
+@Slf4j
+public class SigningEngine {
+
+    private static final String SECURE_RANDOM_ALGORITHM_NAME = "DEFAULT";
+    private static final String ECDSA_SIGNATURE_ALGORITHM_NAME = "SHA256withECDSA";
+    private static final String DETERMINISTIC_ECDSA_SIGNATURE_ALGORITHM_NAME = "SHA256withECDDSA";
+
+    private static final int SIGNATURE_BUFFER_SIZE = 4096;
+
+    private final Stripe[] stripes;
+
+    private final Timer signTimer;
+
+    @Autowired
+    public SigningEngine(
+            @Value("${mobile-utility-server.signature.pool-size}") final int poolSize,
+            @Value("${mobile-utility-server.signature.deterministic}") final boolean deterministic,
+            final MeterRegistry meterRegistry) throws CryptoProviderException {
+
+        final int size = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        this.stripes = new Stripe[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = deterministic
+                    ? new Stripe(createSignature(DETERMINISTIC_ECDSA_SIGNATURE_ALGORITHM_NAME), null)
+                    : new Stripe(createSignature(ECDSA_SIGNATURE_ALGORITHM_NAME), createSecureRandom());
+        }
+        logger.info("Signing engine initialized, pool size: {}, deterministic: {}", size, deterministic);
+
+        this.signTimer = Timer.builder("mobile_utility_server.signature.sign")
+                .description("Duration of ECDSA signature computation including waiting for a free signer")
+                .register(meterRegistry);
+        Gauge.builder("mobile_utility_server.signature.waiting", this, SigningEngine::waitingCount)
+                .description("Number of threads waiting for a free signer")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Compute ECDSA signature of the given data.
+     *
+     * @param signatureBase Signature data.
+     * @param privateKey Private key.
+     * @return ECDSA signature in DER format.
+     * @throws GenericCryptoException In case cryptographic calculation fails.
+     * @throws InvalidKeyException In case provided private key is invalid.
+     */
+    public byte[] sign(final byte[] signatureBase, final PrivateKey privateKey) throws GenericCryptoException, InvalidKeyException {
+        final long start = System.nanoTime();
+        final Stripe stripe = acquire();
+        try {
+            stripe.initSign(privateKey);
+            stripe.signature.update(signatureBase);
+            return stripe.signature.sign();
+        } catch (SignatureException ex) {
+            throw new GenericCryptoException(ex.getMessage(), ex);
+        } finally {
+            stripe.lock.unlock();
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Compute ECDSA signature of the data read from the provided stream.
+     *
+     * @param signatureBase Stream with signature data.
+     * @param privateKey Private key.
+     * @return ECDSA signature in DER format.
+     * @throws GenericCryptoException In case cryptographic calculation fails.
+     * @throws InvalidKeyException In case provided private key is invalid.
+     * @throws IOException In case reading of the signature data fails.
+     */
+    public byte[] sign(final InputStream signatureBase, final PrivateKey privateKey) throws GenericCryptoException, InvalidKeyException, IOException {
+        final long start = System.nanoTime();
+        final Stripe stripe = acquire();
+        try {
+            stripe.initSign(privateKey);
+            int length;
+            while ((length = signatureBase.read(stripe.buffer)) != -1) {
+                stripe.signature.update(stripe.buffer, 0, length);
+            }
+            return stripe.signature.sign();
+        } catch (SignatureException ex) {
+            throw new GenericCryptoException(ex.getMessage(), ex);
+        } finally {
+            stripe.lock.unlock();
+            signTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Lock a free stripe. Stripes are probed starting at a random position to spread the load, the caller waits
+     * for the initial stripe only when all of them are busy.
+     *
+     * @return Locked stripe, the caller is responsible for unlocking.
+     */
+    private Stripe acquire() {
+        final int offset = ThreadLocalRandom.current().nextInt(stripes.length);
+        for (int i = 0; i < stripes.length; i++) {
+            final Stripe stripe = stripes[(offset + i) % stripes.length];
+            if (stripe.lock.tryLock()) {
+                return stripe;
+            }
+        }
+        final Stripe stripe = stripes[offset];
+        stripe.lock.lock();
+        return stripe;
+    }
+
+    private int waitingCount() {
+        int result = 0;
+        for (final Stripe stripe : stripes) {
+            result += stripe.lock.getQueueLength();
+        }
+        return result;
+    }
+
+    private static Signature createSignature(final String algorithm) throws CryptoProviderException {
+        try {
+            return Signature.getInstance(algorithm, PowerAuthConfiguration.CRYPTO_PROVIDER_NAME);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException ex) {
+            throw new CryptoProviderException(ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * Get the strong secure random available in the system. Try using Bouncy Castle first with a fallback to new
+     * secure random (log warning).
+     *
+     * @return Secure random instance.
+     */
+    private static SecureRandom createSecureRandom() {
+        try {
+            return SecureRandom.getInstance(SECURE_RANDOM_ALGORITHM_NAME, PowerAuthConfiguration.CRYPTO_PROVIDER_NAME);
+        } catch (NoSuchAlgorithmException | NoSuchProviderException e) {
+            logger.warn("Unable to register strong random number generator: {}", e.getMessage());
+            logger.debug("Exception details: ", e);
+            return new SecureRandom();
+        }
+    }
+
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final byte[] buffer = new byte[SIGNATURE_BUFFER_SIZE];
+
+        private final Signature signature;
+
+        /**
+         * Random generator for the nonce, {@code null} in the deterministic mode.
+         */
+        private final SecureRandom secureRandom;
+
+        private Stripe(final Signature signature, final SecureRandom secureRandom) {
+            this.signature = signature;
+            this.secureRandom = secureRandom;
+        }
+
+        private void initSign(final PrivateKey privateKey) throws InvalidKeyException {
+            if (secureRandom == null) {
+                signature.initSign(privateKey);
+            } else {
+                signature.initSign(privateKey, secureRandom);
+            }
+        }
+    }
+}
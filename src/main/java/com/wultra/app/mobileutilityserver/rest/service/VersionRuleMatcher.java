@@ -0,0 +1,242 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+
+import java.util.*;
+
+/**
+ * Version rules of an application compiled for fast lookup.
+ * <p>
+ * Rules are indexed by platform and major operation system version. Major OS versions of a platform are kept in
+ * a sorted array, so the index size does not depend on their values. Plain {@code MAJOR[.MINOR[.PATCH]]} versions are
+ * packed into comparable longs, so the common case is a binary search of a few entries and integer comparisons. Other versions, e.g.
+ * with a qualifier, are compared by {@link DefaultArtifactVersion} as before.
+ * <p>
+ * When more rules match the same platform and major OS version, none of them is applied. This is a fail-safe, rules
+ * should be validated by the admin API, but the unique index is not effective due to the nullable major OS version.
+ */
+@Slf4j
+final class VersionRuleMatcher {
+
+    /**
+     * Packed value of a version which can not be packed.
+     */
+    static final long NOT_PACKED = -1;
+
+    private static final int PART_BITS = 21;
+    private static final int MAX_PART_DIGITS = 6;
+    private static final int MAX_PARTS = 3;
+
+    /**
+     * Marker of a platform and major OS version matched by more rules.
+     */
+    private static final CompiledRule AMBIGUOUS = new CompiledRule(null, null, null);
+
+    private final Map<MobileAppVersionEntity.Platform, PlatformRules> platforms;
+
+    private VersionRuleMatcher(final Map<MobileAppVersionEntity.Platform, PlatformRules> platforms) {
+        this.platforms = platforms;
+    }
+
+    /**
+     * Compile the given version rules.
+     *
+     * @param appName App name, used for logging.
+     * @param versionRules Version rules.
+     * @return Compiled rules.
+     */
+    static VersionRuleMatcher compile(final String appName, final List<MobileAppSnapshot.VersionRule> versionRules) {
+        final Map<MobileAppVersionEntity.Platform, PlatformRules> platforms = new EnumMap<>(MobileAppVersionEntity.Platform.class);
+        for (final MobileAppVersionEntity.Platform platform : MobileAppVersionEntity.Platform.values()) {
+            final List<MobileAppSnapshot.VersionRule> platformRules = versionRules.stream()
+                    .filter(it -> it.getPlatform() == platform)
+                    .toList();
+            if (!platformRules.isEmpty()) {
+                platforms.put(platform, compilePlatform(appName, platformRules));
+            }
+        }
+        return new VersionRuleMatcher(platforms);
+    }
+
+    private static PlatformRules compilePlatform(final String appName, final List<MobileAppSnapshot.VersionRule> versionRules) {
+        final SortedMap<Integer, CompiledRule> byMajorOsVersion = new TreeMap<>();
+        CompiledRule fallback = null;
+        for (final MobileAppSnapshot.VersionRule versionRule : versionRules) {
+            final Integer majorOsVersion = versionRule.getMajorOsVersion();
+            if (majorOsVersion == null) {
+                fallback = merge(appName, fallback, versionRule);
+            } else {
+                byMajorOsVersion.put(majorOsVersion, merge(appName, byMajorOsVersion.get(majorOsVersion), versionRule));
+            }
+        }
+
+        final int[] majorOsVersions = new int[byMajorOsVersion.size()];
+        final CompiledRule[] rules = new CompiledRule[byMajorOsVersion.size()];
+        int i = 0;
+        for (final Map.Entry<Integer, CompiledRule> entry : byMajorOsVersion.entrySet()) {
+            majorOsVersions[i] = entry.getKey();
+            rules[i++] = entry.getValue();
+        }
+        return new PlatformRules(majorOsVersions, rules, fallback == AMBIGUOUS ? null : fallback);
+    }
+
+    private static CompiledRule merge(final String appName, final CompiledRule current, final MobileAppSnapshot.VersionRule versionRule) {
+        if (current == null) {
+            return new CompiledRule(versionRule, CompiledVersion.of(versionRule.getRequiredVersion()), CompiledVersion.of(versionRule.getSuggestedVersion()));
+        }
+        logger.warn("Misconfigured application versions, appName: {}, got more results: {}", appName, versionRule);
+        return AMBIGUOUS;
+    }
+
+    /**
+     * Find the rule for the given platform and major OS version. The rule for the exact major OS version takes
+     * precedence over the rule without it.
+     *
+     * @param platform Platform.
+     * @param majorOsVersion Major OS version.
+     * @return Rule or {@code null} if there is none.
+     */
+    CompiledRule find(final MobileAppVersionEntity.Platform platform, final int majorOsVersion) {
+        final PlatformRules platformRules = platforms.get(platform);
+        if (platformRules == null) {
+            return null;
+        }
+        final int index = Arrays.binarySearch(platformRules.majorOsVersions(), majorOsVersion);
+        if (index >= 0) {
+            final CompiledRule exact = platformRules.rules()[index];
+            if (exact != AMBIGUOUS) {
+                return exact;
+            }
+        }
+        return platformRules.fallback();
+    }
+
+    /**
+     * Return the major part of the given version, with the same result as {@link DefaultArtifactVersion#getMajorVersion()}.
+     *
+     * @param version Version.
+     * @return Major version.
+     */
+    static int majorVersion(final String version) {
+        final long packed = pack(version);
+        if (packed != NOT_PACKED) {
+            return (int) (packed >>> (2 * PART_BITS));
+        }
+        return new DefaultArtifactVersion(version).getMajorVersion();
+    }
+
+    /**
+     * Pack a plain {@code MAJOR[.MINOR[.PATCH]]} version without leading zeros into a long, preserving the ordering
+     * of {@link DefaultArtifactVersion}.
+     *
+     * @param version Version.
+     * @return Packed version or {@link #NOT_PACKED} if the version is not plain.
+     */
+    static long pack(final String version) {
+        if (version == null || version.isEmpty()) {
+            return NOT_PACKED;
+        }
+        long result = 0;
+        int parts = 0;
+        int part = 0;
+        int digits = 0;
+        for (int i = 0; i < version.length(); i++) {
+            final char c = version.charAt(i);
+            if (c == '.') {
+                if (digits == 0 || ++parts == MAX_PARTS) {
+                    return NOT_PACKED;
+                }
+                result = (result << PART_BITS) | part;
+                part = 0;
+                digits = 0;
+            } else if (c >= '0' && c <= '9') {
+                if ((digits == 1 && part == 0) || ++digits > MAX_PART_DIGITS) {
+                    // leading zero or too long
+                    return NOT_PACKED;
+                }
+                part = part * 10 + (c - '0');
+            } else {
+                return NOT_PACKED;
+            }
+        }
+        if (digits == 0) {
+            return NOT_PACKED;
+        }
+        result = (result << PART_BITS) | part;
+        // Missing minor and patch parts are zero
+        for (int i = parts + 1; i < MAX_PARTS; i++) {
+            result <<= PART_BITS;
+        }
+        return result;
+    }
+
+    /**
+     * Rules of a platform.
+     *
+     * @param majorOsVersions Sorted major OS versions of the rules.
+     * @param rules Rules for the major OS versions at the same index.
+     * @param fallback Rule without the major OS version, {@code null} if there is none.
+     */
+    private record PlatformRules(int[] majorOsVersions, CompiledRule[] rules, CompiledRule fallback) {
+    }
+
+    /**
+     * Version rule with compiled required and suggested versions.
+     *
+     * @param source Source rule.
+     * @param requiredVersion Required version, {@code null} if not set.
+     * @param suggestedVersion Suggested version, {@code null} if not set.
+     */
+    record CompiledRule(MobileAppSnapshot.VersionRule source, CompiledVersion requiredVersion, CompiledVersion suggestedVersion) {
+    }
+
+    /**
+     * Version of a rule, packed if possible.
+     *
+     * @param packed Packed version or {@link #NOT_PACKED}.
+     * @param version Parsed version.
+     */
+    record CompiledVersion(long packed, DefaultArtifactVersion version) {
+
+        private static CompiledVersion of(final String version) {
+            if (version == null || version.isEmpty()) {
+                return null;
+            }
+            return new CompiledVersion(pack(version), new DefaultArtifactVersion(version));
+        }
+
+        /**
+         * Check whether this version is newer than the given one.
+         *
+         * @param other Other version.
+         * @param otherPacked Packed other version or {@link #NOT_PACKED}.
+         * @return True if this version is newer.
+         */
+        boolean isNewerThan(final String other, final long otherPacked) {
+            if (packed != NOT_PACKED && otherPacked != NOT_PACKED) {
+                return packed > otherPacked;
+            }
+            return version.compareTo(new DefaultArtifactVersion(other)) > 0;
+        }
+    }
+}
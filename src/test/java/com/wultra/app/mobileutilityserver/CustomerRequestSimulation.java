@@ -19,60 +19,190 @@
 package com.wultra.app.mobileutilityserver;
 
 import com.wultra.app.mobileutilityserver.rest.http.HttpHeaders;
+import com.wultra.app.mobileutilityserver.rest.http.QueryParams;
+import io.gatling.javaapi.core.OpenInjectionStep;
 import io.gatling.javaapi.core.ScenarioBuilder;
 import io.gatling.javaapi.core.Simulation;
 import io.gatling.javaapi.http.HttpDsl;
 import io.gatling.javaapi.http.HttpProtocolBuilder;
-import org.apache.commons.lang3.RandomStringUtils;
 
-import java.util.Collections;
-import java.util.Iterator;
-import java.util.Map;
+import java.util.*;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 
-import static io.gatling.javaapi.core.CoreDsl.constantUsersPerSec;
-import static io.gatling.javaapi.core.CoreDsl.scenario;
+import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.http;
+import static io.gatling.javaapi.http.HttpDsl.status;
 
 /**
- * Simple Gatling load test for the main mobile app endpoint.
+ * Gatling load test for the main mobile app endpoint with a configurable mix of the app initialization requests.
+ * <p>
+ * The traffic mix is generated from a fixed seed, so runs against different releases send the same requests in
+ * the same order. Each kind of request is reported under its own name. Everything is configured by system properties:
+ * <ul>
+ *     <li>{@code baseUrl}, {@code appName} - server and the application, defaults {@code http://localhost:8080} and {@code mobile-app}</li>
+ *     <li>{@code profile} - {@code constant} (default), {@code ramp}, {@code spike} or {@code soak}</li>
+ *     <li>{@code users}, {@code duration} - new users per second and duration of the profile in seconds, defaults 10 and 60,
+ *     3600 for the soak profile</li>
+ *     <li>{@code peakUsers}, {@code spikeDuration} - rate and duration of the spike, defaults 5 times {@code users} and 10 seconds</li>
+ *     <li>{@code requests} - weights of the request kinds, default {@code plain:20,version:74,unknownApp:3,invalidChallenge:3}</li>
+ *     <li>{@code outcomes} - weights of the version check outcomes, default {@code required:5,suggested:15,ok:80}</li>
+ *     <li>{@code requiredVersion}, {@code suggestedVersion}, {@code okVersion} - app versions expected to be resolved
+ *     by the server with the particular outcome, defaults {@code 1.0.0}, {@code 2.0.0} and {@code 3.0.0}</li>
+ *     <li>{@code platforms} - weights of the platforms, default {@code ANDROID:60,IOS:40}</li>
+ *     <li>{@code androidVersions}, {@code iosVersions} - weights of the OS versions, defaults {@code 33:20,34:40,35:40}
+ *     and {@code 16.7.10:20,17.6.1:40,18.2:40}</li>
+ *     <li>{@code locales} - weights of the {@code Accept-Language} values, default {@code en:60,de:20,cs:20}</li>
+ *     <li>{@code seed} - seed of the traffic mix, default 42</li>
+ *     <li>{@code p99}, {@code maxFailedPercent} - assertions on the 99th percentile of the response time in milliseconds
+ *     and on the failed requests, defaults 100 and 1</li>
+ * </ul>
  *
  * @author Petr Dvorak, petr@wultra.com
  */
 public class CustomerRequestSimulation extends Simulation {
 
+    private static final String UNKNOWN_APP_NAME = "gatling-unknown-app";
+
+    final String appName = System.getProperty("appName", "mobile-app");
+
+    final Random random = new Random(Long.getLong("seed", 42));
+
+    final WeightedValues<String> requests = WeightedValues.parse(System.getProperty("requests", "plain:20,version:74,unknownApp:3,invalidChallenge:3"));
+    final WeightedValues<String> outcomes = WeightedValues.parse(System.getProperty("outcomes", "required:5,suggested:15,ok:80"));
+    final WeightedValues<String> platforms = WeightedValues.parse(System.getProperty("platforms", "ANDROID:60,IOS:40"));
+    final WeightedValues<String> androidVersions = WeightedValues.parse(System.getProperty("androidVersions", "33:20,34:40,35:40"));
+    final WeightedValues<String> iosVersions = WeightedValues.parse(System.getProperty("iosVersions", "16.7.10:20,17.6.1:40,18.2:40"));
+    final WeightedValues<String> locales = WeightedValues.parse(System.getProperty("locales", "en:60,de:20,cs:20"));
+    final Map<String, String> appVersions = Map.of(
+            "required", System.getProperty("requiredVersion", "1.0.0"),
+            "suggested", System.getProperty("suggestedVersion", "2.0.0"),
+            "ok", System.getProperty("okVersion", "3.0.0"));
+
     // Protocol Definition
     final HttpProtocolBuilder httpProtocol = HttpDsl.http
             .baseUrl(System.getProperty("baseUrl", "http://localhost:8080"))
             .acceptHeader("application/json")
             .userAgentHeader("Gatling Performance Test");
 
-    final Iterator<Map<String, Object>> feeder =
-            Stream.generate((Supplier<Map<String, Object>>) () -> {
-                        final String challengeHeader = RandomStringUtils.randomAlphanumeric(16);
-                        return Collections.singletonMap("challenge", challengeHeader);
-                    }
-            ).iterator();
+    final Iterator<Map<String, Object>> feeder = Stream.generate((Supplier<Map<String, Object>>) this::nextRequest).iterator();
 
     // Scenario
-    final ScenarioBuilder scn = scenario("BasicSimulation")
+    final ScenarioBuilder scn = scenario("AppInitSimulation")
             .feed(feeder)
             .exec(
-                    http("Perf Test")
+                    http(session -> session.getString("requestName"))
                             .get("/app/init")
-                            .queryParam("appName", System.getProperty("appName", "mobile-app"))
+                            .queryParamMap(session -> session.getMap("query"))
                             .header(HttpHeaders.REQUEST_CHALLENGE, session -> session.getString("challenge"))
+                            .header("Accept-Language", session -> session.getString("locale"))
+                            .check(status().is(session -> session.getInt("expectedStatus")))
             );
 
     {
-        setUp(scn.injectOpen(
-                constantUsersPerSec(
-                        Integer.getInteger("users", 10)
-                ).during(
-                        Integer.getInteger("duration", 60)
-                )
-        )).protocols(httpProtocol);
+        setUp(scn.injectOpen(injectionProfile()))
+                .protocols(httpProtocol)
+                .assertions(
+                        global().responseTime().percentile(99.0).lt(Integer.getInteger("p99", 100)),
+                        global().failedRequests().percent().lt(Double.parseDouble(System.getProperty("maxFailedPercent", "1")))
+                );
+    }
+
+    private static OpenInjectionStep[] injectionProfile() {
+        final String profile = System.getProperty("profile", "constant");
+        final int users = Integer.getInteger("users", 10);
+        final int duration = Integer.getInteger("duration", "soak".equals(profile) ? 3600 : 60);
+        return switch (profile) {
+            case "constant", "soak" -> new OpenInjectionStep[]{
+                    constantUsersPerSec(users).during(duration)
+            };
+            case "ramp" -> new OpenInjectionStep[]{
+                    rampUsersPerSec(1).to(users).during(duration)
+            };
+            case "spike" -> new OpenInjectionStep[]{
+                    constantUsersPerSec(users).during(duration / 2),
+                    constantUsersPerSec(Integer.getInteger("peakUsers", users * 5)).during(Integer.getInteger("spikeDuration", 10)),
+                    constantUsersPerSec(users).during(duration / 2)
+            };
+            default -> throw new IllegalArgumentException("Unknown profile: " + profile);
+        };
+    }
+
+    /**
+     * Generate the next request of the traffic mix, called by a single thread of the feeder.
+     */
+    private Map<String, Object> nextRequest() {
+        final Map<String, Object> query = new LinkedHashMap<>();
+        final Map<String, Object> request = new HashMap<>();
+        request.put("query", query);
+        request.put("challenge", challenge(16 + random.nextInt(17)));
+        request.put("locale", locales.next(random));
+        request.put("expectedStatus", 200);
+        query.put(QueryParams.QUERY_PARAM_APP_NAME, appName);
+
+        final String kind = requests.next(random);
+        switch (kind) {
+            case "plain" -> request.put("requestName", "init plain");
+            case "version" -> {
+                final String outcome = outcomes.next(random);
+                final String platform = platforms.next(random);
+                query.put(QueryParams.QUERY_PARAM_APP_VERSION, appVersions.get(outcome));
+                query.put(QueryParams.QUERY_PARAM_OS_VERSION, ("IOS".equals(platform) ? iosVersions : androidVersions).next(random));
+                query.put(QueryParams.QUERY_PARAM_PLATFORM, platform);
+                request.put("requestName", "init version " + outcome);
+            }
+            case "unknownApp" -> {
+                query.put(QueryParams.QUERY_PARAM_APP_NAME, UNKNOWN_APP_NAME);
+                request.put("requestName", "init unknown app");
+                request.put("expectedStatus", 404);
+            }
+            case "invalidChallenge" -> {
+                request.put("challenge", challenge(8));
+                request.put("requestName", "init invalid challenge");
+                request.put("expectedStatus", 403);
+            }
+            default -> throw new IllegalArgumentException("Unknown request kind: " + kind);
+        }
+        return request;
+    }
+
+    private String challenge(final int length) {
+        final byte[] challenge = new byte[length];
+        random.nextBytes(challenge);
+        return Base64.getEncoder().encodeToString(challenge);
+    }
+
+    /**
+     * Values picked randomly according to their weights, parsed from {@code value:weight} pairs separated by commas.
+     */
+    record WeightedValues<T>(List<T> values, int[] cumulativeWeights) {
+
+        static WeightedValues<String> parse(final String spec) {
+            final List<String> values = new ArrayList<>();
+            final List<Integer> weights = new ArrayList<>();
+            for (final String pair : spec.split(",")) {
+                final int separator = pair.lastIndexOf(':');
+                values.add(pair.substring(0, separator).trim());
+                weights.add(Integer.parseInt(pair.substring(separator + 1).trim()));
+            }
+            final int[] cumulativeWeights = new int[weights.size()];
+            int sum = 0;
+            for (int i = 0; i < weights.size(); i++) {
+                sum += weights.get(i);
+                cumulativeWeights[i] = sum;
+            }
+            return new WeightedValues<>(values, cumulativeWeights);
+        }
+
+        T next(final Random random) {
+            final int target = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (target < cumulativeWeights[i]) {
+                    return values.get(i);
+                }
+            }
+            throw new IllegalStateException("Unreachable");
+        }
     }
 
 }
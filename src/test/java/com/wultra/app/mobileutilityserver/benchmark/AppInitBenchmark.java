@@ -0,0 +1,170 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.app.mobileutilityserver.database.model.LocalizedTextEntity;
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import com.wultra.app.mobileutilityserver.database.model.NamedFingerprint;
+import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
+import com.wultra.app.mobileutilityserver.rest.http.HttpHeaders;
+import com.wultra.app.mobileutilityserver.rest.model.converter.CertificateConverter;
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import com.wultra.app.mobileutilityserver.rest.model.response.AppInitResponse;
+import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
+import com.wultra.app.mobileutilityserver.rest.service.AppInitMetrics;
+import com.wultra.app.mobileutilityserver.rest.service.AppInitResponseCache;
+import com.wultra.app.mobileutilityserver.rest.service.LocalizedTextCatalog;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppService;
+import com.wultra.app.mobileutilityserver.rest.service.MobileAppSnapshot;
+import com.wultra.app.mobileutilityserver.rest.service.VerifyVersionRequest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks of the individual stages of the app initialization request, apart from the response signature
+ * which is covered by {@link SignatureBenchmark}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class AppInitBenchmark {
+
+    private static final String CHALLENGE = "MDEyMzQ1Njc4OTAxMjM0NQ==";
+
+    /**
+     * Number of pinned domains of the application.
+     */
+    @Param({"2", "20"})
+    private int domainCount;
+
+    private final CertificateConverter certificateConverter = new CertificateConverter();
+
+    private final MobileAppService mobileAppService = new MobileAppService(null, createLocalizedTextCatalog(), new AppInitMetrics(new SimpleMeterRegistry(), 100));
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final AppInitResponseCache appInitResponseCache = new AppInitResponseCache(objectMapper);
+
+    private NamedFingerprint namedFingerprint;
+
+    private MobileAppSnapshot app;
+
+    private VerifyVersionRequest verifyVersionRequest;
+
+    private VerifyVersionResult verifyVersionResult;
+
+    @Setup
+    public void setup() {
+        BenchmarkSupport.setRootLogLevel(Level.WARN);
+
+        namedFingerprint = new NamedFingerprint("mobile.wultra.com", "jJ0oK0G7UA2Bh9XXJrISCp9Rsh7Qd3Ui4MbAm7y3fXM=", 1893456000L);
+
+        final List<CertificateFingerprint> fingerprints = new ArrayList<>();
+        for (int i = 0; i < domainCount; i++) {
+            final CertificateFingerprint fingerprint = new CertificateFingerprint();
+            fingerprint.setName("domain" + i + ".wultra.com");
+            fingerprint.setFingerprint("jJ0oK0G7UA2Bh9XXJrISCp9Rsh7Qd3Ui4MbAm7y3fXM=");
+            fingerprint.setExpires(1893456000L);
+            fingerprints.add(fingerprint);
+        }
+
+        app = MobileAppSnapshot.builder()
+                .name("benchmark-app")
+                .fingerprints(fingerprints)
+                .versionRules(List.of(
+                        MobileAppSnapshot.VersionRule.builder()
+                                .platform(MobileAppVersionEntity.Platform.IOS)
+                                .majorOsVersion(17)
+                                .suggestedVersion("3.2.0")
+                                .requiredVersion("2.0.0")
+                                .messageKey("benchmark-app.update")
+                                .build(),
+                        MobileAppSnapshot.VersionRule.builder()
+                                .platform(MobileAppVersionEntity.Platform.ANDROID)
+                                .suggestedVersion("3.2.0")
+                                .build()))
+                .build();
+
+        verifyVersionRequest = VerifyVersionRequest.builder()
+                .applicationName("benchmark-app")
+                .applicationVersion("3.1.2")
+                .systemVersion("17.4.1")
+                .platform(VerifyVersionRequest.Platform.IOS)
+                .build();
+
+        verifyVersionResult = mobileAppService.verifyVersion(app, verifyVersionRequest);
+    }
+
+    private static LocalizedTextCatalog createLocalizedTextCatalog() {
+        final LocalizedTextEntity text = new LocalizedTextEntity();
+        text.setMessageKey("benchmark-app.update");
+        text.setLanguage("en");
+        text.setText("Update the app, please.");
+
+        // Only findAll is used to load the catalog
+        final LocalizedTextRepository repository = (LocalizedTextRepository) Proxy.newProxyInstance(
+                LocalizedTextRepository.class.getClassLoader(),
+                new Class<?>[]{LocalizedTextRepository.class},
+                (proxy, method, args) -> {
+                    if ("findAll".equals(method.getName()) && method.getParameterCount() == 0) {
+                        return List.of(text);
+                    }
+                    throw new UnsupportedOperationException(method.getName());
+                });
+        return new LocalizedTextCatalog(repository, Duration.ofHours(1), new SimpleMeterRegistry());
+    }
+
+    @Benchmark
+    public boolean validChallengeHeader() {
+        return HttpHeaders.validChallengeHeader(CHALLENGE);
+    }
+
+    @Benchmark
+    public CertificateFingerprint convertNamedFingerprint() {
+        return certificateConverter.convertNamedFingerprintFrom(namedFingerprint);
+    }
+
+    @Benchmark
+    public VerifyVersionResult verifyVersion() {
+        return mobileAppService.verifyVersion(app, verifyVersionRequest);
+    }
+
+    @Benchmark
+    public byte[] serializeAppInitResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(new AppInitResponse(app.getFingerprints(), verifyVersionResult));
+    }
+
+    @Benchmark
+    public byte[] serializeAppInitResponseCached() {
+        return appInitResponseCache.serialize(app, verifyVersionResult);
+    }
+}
@@ -0,0 +1,203 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.benchmark;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.app.mobileutilityserver.rest.model.enums.Platform;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationCertificatePemRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateApplicationVersionRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.CreateTextRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.ImportApplicationRequest;
+import com.wultra.app.mobileutilityserver.rest.model.request.ImportRequest;
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.openssl.jcajce.JcaPEMWriter;
+import org.bouncycastle.operator.ContentSigner;
+import org.bouncycastle.operator.OperatorCreationException;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generator of a dataset for load tests and benchmarks of database queries, in the format of the bulk import request
+ * {@code POST /admin/import}, so it is written by the batched inserts of the import service.
+ * <p>
+ * Each application gets the given number of domains with the given number of certificates, version rules for each
+ * platform with and without a major OS version, and a localized update message in several languages. Version rules
+ * match the defaults of {@code CustomerRequestSimulation}: app version {@code 1.0.0} must be updated, {@code 2.0.0}
+ * should be updated and {@code 3.0.0} is up-to-date. Certificates are self-signed by a single EC key, valid from
+ * 30 to 30 + 30 * K days, so the dataset stays valid for a month at least.
+ */
+public final class FixtureGenerator {
+
+    static final String REQUIRED_VERSION = "1.5.0";
+    static final String SUGGESTED_VERSION = "2.5.0";
+
+    private static final Map<Platform, List<Integer>> MAJOR_OS_VERSIONS = Map.of(
+            Platform.ANDROID, List.of(33, 34, 35),
+            Platform.IOS, List.of(16, 17, 18));
+
+    private static final Map<String, String> UPDATE_MESSAGES = Map.of(
+            "en", "Please update the application.",
+            "de", "Bitte aktualisieren Sie die Anwendung.",
+            "cs", "Aktualizujte prosím aplikaci.");
+
+    private final String appNamePrefix;
+    private final int appCount;
+    private final int domainCount;
+    private final int certificateCount;
+
+    private final KeyPair keyPair;
+    private final ContentSigner contentSigner;
+    private final Instant now = Instant.now();
+    private long serialNumber;
+
+    /**
+     * Create the generator.
+     *
+     * @param appNamePrefix Prefix of the application names, followed by a sequence number starting at 1.
+     * @param appCount Number of applications.
+     * @param domainCount Number of domains per application.
+     * @param certificateCount Number of certificates per domain.
+     * @throws GeneralSecurityException In case the signing key can not be generated.
+     */
+    public FixtureGenerator(final String appNamePrefix, final int appCount, final int domainCount, final int certificateCount) throws GeneralSecurityException {
+        this.appNamePrefix = appNamePrefix;
+        this.appCount = appCount;
+        this.domainCount = domainCount;
+        this.certificateCount = certificateCount;
+
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(256);
+        this.keyPair = keyPairGenerator.generateKeyPair();
+        try {
+            this.contentSigner = new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate());
+        } catch (OperatorCreationException e) {
+            throw new GeneralSecurityException("Unable to create the certificate signer", e);
+        }
+    }
+
+    /**
+     * Generate the import request.
+     *
+     * @return Import request.
+     */
+    public ImportRequest generate() {
+        final ImportRequest request = new ImportRequest();
+        for (int i = 1; i <= appCount; i++) {
+            final String appName = appNamePrefix + i;
+            request.getApplications().add(generateApplication(appName));
+            UPDATE_MESSAGES.forEach((language, text) -> {
+                final CreateTextRequest textRequest = new CreateTextRequest();
+                textRequest.setMessageKey(messageKey(appName));
+                textRequest.setLanguage(language);
+                textRequest.setText(text);
+                request.getTexts().add(textRequest);
+            });
+        }
+        return request;
+    }
+
+    private ImportApplicationRequest generateApplication(final String appName) {
+        final ImportApplicationRequest request = new ImportApplicationRequest();
+        request.setName(appName);
+        request.setDisplayName("Load Test App " + appName);
+
+        for (int d = 1; d <= domainCount; d++) {
+            final String domain = "api%d.%s.example.com".formatted(d, appName);
+            for (int c = 1; c <= certificateCount; c++) {
+                final CreateApplicationCertificatePemRequest certificate = new CreateApplicationCertificatePemRequest();
+                certificate.setDomain(domain);
+                certificate.setPem(generateCertificate(domain, now.plus(Duration.ofDays(30L + 30L * c))));
+                request.getCertificates().add(certificate);
+            }
+        }
+
+        MAJOR_OS_VERSIONS.forEach((platform, majorOsVersions) -> {
+            request.getVersions().add(generateVersion(appName, platform, null));
+            majorOsVersions.forEach(majorOsVersion -> request.getVersions().add(generateVersion(appName, platform, majorOsVersion)));
+        });
+        return request;
+    }
+
+    private static CreateApplicationVersionRequest generateVersion(final String appName, final Platform platform, final Integer majorOsVersion) {
+        final CreateApplicationVersionRequest request = new CreateApplicationVersionRequest();
+        request.setPlatform(platform);
+        request.setMajorOsVersion(majorOsVersion);
+        request.setRequiredVersion(REQUIRED_VERSION);
+        request.setSuggestedVersion(SUGGESTED_VERSION);
+        request.setMessageKey(messageKey(appName));
+        return request;
+    }
+
+    private static String messageKey(final String appName) {
+        return appName + ".update";
+    }
+
+    private String generateCertificate(final String domain, final Instant notAfter) {
+        final X500Name name = new X500Name("CN=" + domain);
+        final JcaX509v3CertificateBuilder builder = new JcaX509v3CertificateBuilder(
+                name, BigInteger.valueOf(++serialNumber), Date.from(now), Date.from(notAfter), name, keyPair.getPublic());
+        final StringWriter stringWriter = new StringWriter();
+        try (final JcaPEMWriter pemWriter = new JcaPEMWriter(stringWriter)) {
+            pemWriter.writeObject(builder.build(contentSigner));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return stringWriter.toString();
+    }
+
+    /**
+     * Write the generated import request as JSON.
+     *
+     * @param args Output file, number of applications, domains per application and certificates per domain,
+     *             defaults {@code 100}, {@code 5} and {@code 2}.
+     * @throws Exception In case the dataset can not be generated or written.
+     */
+    public static void main(final String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: FixtureGenerator <output-file> [apps] [domains] [certificates]");
+            System.exit(1);
+        }
+        final File output = new File(args[0]);
+        final int appCount = args.length > 1 ? Integer.parseInt(args[1]) : 100;
+        final int domainCount = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+        final int certificateCount = args.length > 3 ? Integer.parseInt(args[3]) : 2;
+
+        final ImportRequest request = new FixtureGenerator("load-app-", appCount, domainCount, certificateCount).generate();
+        new ObjectMapper()
+                .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+                .writeValue(output, request);
+        System.out.printf("Generated %d applications with %d certificates into %s%n",
+                appCount, appCount * domainCount * certificateCount, output.getAbsolutePath());
+    }
+}
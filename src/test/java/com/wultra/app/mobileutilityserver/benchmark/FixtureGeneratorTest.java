@@ -0,0 +1,71 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.benchmark;
+
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import com.wultra.app.mobileutilityserver.database.repo.CertificateRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppVersionRepository;
+import com.wultra.app.mobileutilityserver.rest.model.response.ImportResponse;
+import com.wultra.app.mobileutilityserver.rest.service.ImportService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link FixtureGenerator}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class FixtureGeneratorTest {
+
+    @Autowired
+    private ImportService importService;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private MobileAppVersionRepository mobileAppVersionRepository;
+
+    @Test
+    void testGenerateAndImport() throws Exception {
+        final ImportResponse response = importService.importApplications(new FixtureGenerator("fixture-app-", 3, 2, 2).generate());
+
+        assertEquals(3, response.getApplications());
+        assertEquals(6, response.getDomains());
+        assertEquals(12, response.getCertificates());
+        assertEquals(24, response.getVersions());
+        assertEquals(9, response.getTexts());
+
+        assertEquals(4, certificateRepository.findAllFingerprintsByAppNameAndExpiresNotBefore("fixture-app-2", Instant.now().getEpochSecond()).size());
+        final MobileAppVersionEntity version = mobileAppVersionRepository
+                .findFirstByApplicationNameAndPlatformAndMajorOsVersion("fixture-app-2", MobileAppVersionEntity.Platform.IOS, 17)
+                .orElseThrow();
+        assertEquals(FixtureGenerator.REQUIRED_VERSION, version.getRequiredVersion());
+        assertEquals(FixtureGenerator.SUGGESTED_VERSION, version.getSuggestedVersion());
+        assertEquals("fixture-app-2.update", version.getMessageKey());
+    }
+}
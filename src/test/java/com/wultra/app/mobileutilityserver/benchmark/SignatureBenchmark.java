@@ -0,0 +1,76 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.benchmark;
+
+import ch.qos.logback.classic.Level;
+import com.wultra.app.mobileutilityserver.rest.service.CryptographicOperationsService;
+import com.wultra.app.mobileutilityserver.rest.service.SigningEngine;
+import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
+import io.getlime.security.powerauth.crypto.lib.util.KeyConvertor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.security.PrivateKey;
+import java.security.Security;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark of the response signature, {@code threads} and {@code poolSize} may be overridden from the command line
+ * to measure contention on the signing engine.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+@State(Scope.Benchmark)
+public class SignatureBenchmark {
+
+    @Param({"false", "true"})
+    private boolean deterministic;
+
+    @Param({"0"})
+    private int poolSize;
+
+    private CryptographicOperationsService cryptographicOperationsService;
+
+    private PrivateKey privateKey;
+
+    private byte[] signatureBase;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkSupport.setRootLogLevel(Level.WARN);
+        Security.addProvider(new BouncyCastleProvider());
+
+        final SigningEngine signingEngine = new SigningEngine(poolSize, deterministic, new SimpleMeterRegistry());
+        cryptographicOperationsService = new CryptographicOperationsService(new KeyGenerator(), new KeyConvertor(), signingEngine);
+        privateKey = cryptographicOperationsService.generateKeyPair().getPrivate();
+        signatureBase = ("MDEyMzQ1Njc4OTAxMjM0NQ==&{\"fingerprints\":[{\"name\":\"mobile.wultra.com\","
+                + "\"fingerprint\":\"jJ0oK0G7UA2Bh9XXJrISCp9Rsh7Qd3Ui4MbAm7y3fXM=\",\"expires\":1893456000}],"
+                + "\"timestamp\":1700000000}").getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String computeECDSASignature() throws Exception {
+        return cryptographicOperationsService.computeECDSASignature(signatureBase, privateKey);
+    }
+}
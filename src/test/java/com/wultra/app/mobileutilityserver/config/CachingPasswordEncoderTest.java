@@ -0,0 +1,95 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.MessageDigestPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link CachingPasswordEncoder}.
+ */
+class CachingPasswordEncoderTest {
+
+    private final AtomicInteger verifications = new AtomicInteger();
+
+    @SuppressWarnings("deprecation")
+    private final PasswordEncoder delegate = new MessageDigestPasswordEncoder("SHA-256") {
+        @Override
+        public boolean matches(final CharSequence rawPassword, final String encodedPassword) {
+            verifications.incrementAndGet();
+            return super.matches(rawPassword, encodedPassword);
+        }
+    };
+
+    @Test
+    void testMatches_cached() {
+        final CachingPasswordEncoder tested = new CachingPasswordEncoder(delegate, Duration.ofMinutes(1), 10);
+        final String encoded = tested.encode("password");
+
+        assertTrue(tested.matches("password", encoded));
+        assertTrue(tested.matches("password", encoded));
+        assertEquals(1, verifications.get());
+
+        assertFalse(tested.matches("wrong", encoded));
+        assertFalse(tested.matches("wrong", encoded));
+        assertEquals(3, verifications.get(), "Failed verification should not be cached");
+    }
+
+    @Test
+    void testMatches_changedPassword() {
+        final CachingPasswordEncoder tested = new CachingPasswordEncoder(delegate, Duration.ofMinutes(1), 10);
+        final String encoded = tested.encode("password");
+        assertTrue(tested.matches("password", encoded));
+
+        final String changed = tested.encode("changed");
+        assertFalse(tested.matches("password", changed));
+        assertTrue(tested.matches("changed", changed));
+        assertEquals(3, verifications.get());
+    }
+
+    @Test
+    void testMatches_expired() throws Exception {
+        final CachingPasswordEncoder tested = new CachingPasswordEncoder(delegate, Duration.ofMillis(1), 10);
+        final String encoded = tested.encode("password");
+
+        assertTrue(tested.matches("password", encoded));
+        Thread.sleep(10);
+        assertTrue(tested.matches("password", encoded));
+        assertEquals(2, verifications.get());
+    }
+
+    @Test
+    void testMatches_bounded() {
+        final CachingPasswordEncoder tested = new CachingPasswordEncoder(delegate, Duration.ofMinutes(1), 1);
+        final String first = tested.encode("first");
+        final String second = tested.encode("second");
+
+        assertTrue(tested.matches("first", first));
+        assertTrue(tested.matches("second", second));
+        assertTrue(tested.matches("second", second));
+        assertTrue(tested.matches("first", first));
+        assertEquals(3, verifications.get());
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.filter;
+
+import com.wultra.app.mobileutilityserver.rest.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link ResponseSignFilter}.
+ */
+class ResponseSignFilterTest {
+
+    private final ResponseSignFilter tested = new ResponseSignFilter(null, null, null);
+
+    @Test
+    void testShouldNotFilter() {
+        assertFalse(tested.shouldNotFilter(createRequest("", "/app/init")));
+        assertFalse(tested.shouldNotFilter(createRequest("", "/app/init/public-key")));
+        assertFalse(tested.shouldNotFilter(createRequest("/mobile-utility-server", "/mobile-utility-server/app/init")));
+
+        assertTrue(tested.shouldNotFilter(createRequest("", "/app/initX")));
+        assertTrue(tested.shouldNotFilter(createRequest("", "/app/init-other")));
+        assertTrue(tested.shouldNotFilter(createRequest("", "/admin/app/init")));
+        assertTrue(tested.shouldNotFilter(createRequest("/mobile-utility-server", "/mobile-utility-server/app/initX")));
+    }
+
+    @Test
+    void testShouldNotFilter_withoutChallenge() {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", "/app/init");
+        assertTrue(tested.shouldNotFilter(request));
+    }
+
+    private static MockHttpServletRequest createRequest(final String contextPath, final String uri) {
+        final MockHttpServletRequest request = new MockHttpServletRequest("GET", uri);
+        request.setContextPath(contextPath);
+        request.addHeader(HttpHeaders.REQUEST_CHALLENGE, "challenge");
+        return request;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppException;
+import com.wultra.app.mobileutilityserver.rest.model.response.AdminTokenResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.web.authentication.preauth.PreAuthenticatedAuthenticationToken;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link AdminTokenService}.
+ */
+class AdminTokenServiceTest {
+
+    private static final String SECRET = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private final AdminTokenService tested = new AdminTokenService(true, Duration.ofMinutes(15), SECRET);
+
+    @Test
+    void testIssueAndVerify() throws Exception {
+        final long before = Instant.now().plus(Duration.ofMinutes(15)).getEpochSecond();
+        final AdminTokenResponse response = tested.issue(passwordAuthentication());
+        assertTrue(response.getExpires() >= before);
+
+        final Authentication result = tested.verify(response.getToken());
+        assertNotNull(result);
+        assertTrue(result.isAuthenticated());
+        assertEquals("admin:user", result.getName());
+        assertEquals(AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER"), result.getAuthorities());
+    }
+
+    @Test
+    void testVerify_otherSecret() throws Exception {
+        final String token = tested.issue(passwordAuthentication()).getToken();
+        final byte[] otherSecret = new byte[32];
+        Arrays.fill(otherSecret, (byte) 1);
+        final AdminTokenService other = new AdminTokenService(true, Duration.ofMinutes(15), Base64.getEncoder().encodeToString(otherSecret));
+
+        assertNull(other.verify(token));
+    }
+
+    @Test
+    void testVerify_tampered() throws Exception {
+        final String token = tested.issue(passwordAuthentication()).getToken();
+        final String payload = Base64.getUrlEncoder().withoutPadding().encodeToString("4102444800\nROLE_ADMIN\nadmin".getBytes());
+
+        assertNull(tested.verify(payload + token.substring(token.indexOf('.'))));
+        assertNull(tested.verify(token.substring(0, token.indexOf('.'))));
+        assertNull(tested.verify("invalid!.token"));
+    }
+
+    @Test
+    void testVerify_expired() throws Exception {
+        final AdminTokenService expiring = new AdminTokenService(true, Duration.ofSeconds(-1), SECRET);
+        final String token = expiring.issue(passwordAuthentication()).getToken();
+
+        assertNull(expiring.verify(token));
+    }
+
+    @Test
+    void testIssue_rejected() {
+        final Authentication tokenAuthentication = new PreAuthenticatedAuthenticationToken("admin", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN"));
+        assertThrows(AppException.class, () -> tested.issue(tokenAuthentication));
+
+        final AdminTokenService disabled = new AdminTokenService(false, Duration.ofMinutes(15), "");
+        assertThrows(AppException.class, () -> disabled.issue(passwordAuthentication()));
+    }
+
+    @Test
+    void testShortSecret() {
+        final String secret = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThrows(IllegalStateException.class, () -> new AdminTokenService(true, Duration.ofMinutes(15), secret));
+    }
+
+    private static Authentication passwordAuthentication() {
+        return UsernamePasswordAuthenticationToken.authenticated("admin:user", null, AuthorityUtils.createAuthorityList("ROLE_ADMIN", "ROLE_USER"));
+    }
+}
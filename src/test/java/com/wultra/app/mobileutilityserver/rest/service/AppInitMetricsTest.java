@@ -0,0 +1,111 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link AppInitMetrics}.
+ */
+class AppInitMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AppInitMetrics tested = new AppInitMetrics(meterRegistry, 2);
+
+    @Test
+    void testAppTag_bounded() {
+        assertEquals("app1", tested.appTag("app1"));
+        assertEquals("app2", tested.appTag("app2"));
+        assertEquals(AppInitMetrics.OTHER_APP, tested.appTag("app3"));
+        assertEquals("app1", tested.appTag("app1"));
+    }
+
+    @Test
+    void testAppTag_concurrent() throws Exception {
+        final AppInitMetrics metrics = new AppInitMetrics(meterRegistry, 10);
+        final Set<String> tags = ConcurrentHashMap.newKeySet();
+        final CountDownLatch start = new CountDownLatch(1);
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 0; i < 100; i++) {
+                        tags.add(metrics.appTag("app" + i % 20));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (final Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(11, tags.size(), "Ten applications should be tagged by their name, the rest as other");
+        assertTrue(tags.contains(AppInitMetrics.OTHER_APP));
+        tags.stream()
+                .filter(tag -> !AppInitMetrics.OTHER_APP.equals(tag))
+                .forEach(tag -> assertEquals(tag, metrics.appTag(tag), "Tagged application should keep its name"));
+    }
+
+    @Test
+    void testRecordStage() {
+        tested.recordStage(AppInitMetrics.STAGE_APP_LOOKUP, "app1", AppInitMetrics.OUTCOME_FOUND, System.nanoTime());
+        tested.recordStage(AppInitMetrics.STAGE_APP_LOOKUP, "app1", AppInitMetrics.OUTCOME_FOUND, System.nanoTime());
+        tested.recordStage(AppInitMetrics.STAGE_APP_LOOKUP, AppInitMetrics.UNKNOWN_APP, AppInitMetrics.OUTCOME_NOT_FOUND, System.nanoTime());
+
+        final Timer found = meterRegistry.get(AppInitMetrics.STAGE_METRIC)
+                .tags("stage", "app_lookup", "app", "app1", "outcome", "found")
+                .timer();
+        assertEquals(2, found.count());
+        final Timer notFound = meterRegistry.get(AppInitMetrics.STAGE_METRIC)
+                .tags("stage", "app_lookup", "app", "unknown", "outcome", "not_found")
+                .timer();
+        assertEquals(1, notFound.count());
+    }
+
+    @Test
+    void testRecordResponseSize() {
+        tested.recordResponseSize("app1", 100);
+        tested.recordResponseSize("app1", 300);
+
+        final DistributionSummary summary = meterRegistry.get(AppInitMetrics.RESPONSE_SIZE_METRIC).tag("app", "app1").summary();
+        assertEquals(2, summary.count());
+        assertEquals(400, summary.totalAmount());
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import com.wultra.app.mobileutilityserver.rest.model.response.AppInitResponse;
+import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link AppInitResponseCache}.
+ */
+class AppInitResponseCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    private final AppInitResponseCache tested = new AppInitResponseCache(objectMapper);
+
+    @Test
+    void testSerialize() throws Exception {
+        final MobileAppSnapshot app = createSnapshot();
+        final VerifyVersionResult verifyVersionResult = VerifyVersionResult.builder()
+                .update(VerifyVersionResult.Update.SUGGESTED)
+                .message("Update the app, please.")
+                .build();
+
+        final long before = Instant.now().getEpochSecond();
+        final JsonNode result = objectMapper.readTree(tested.serialize(app, verifyVersionResult));
+        final long after = Instant.now().getEpochSecond();
+
+        assertEquals("mobile.wultra.com", result.at("/fingerprints/0/name").asText());
+        assertEquals("fingerprint1", result.at("/fingerprints/0/fingerprint").asText());
+        assertEquals(1893456000L, result.at("/fingerprints/0/expires").asLong());
+        assertEquals("SUGGESTED", result.at("/verifyVersionResult/update").asText());
+        assertEquals("Update the app, please.", result.at("/verifyVersionResult/message").asText());
+
+        final long timestamp = result.get("timestamp").asLong();
+        assertTrue(timestamp >= before && timestamp <= after, "Current timestamp expected");
+    }
+
+    @Test
+    void testSerialize_propertyOrder() throws Exception {
+        final MobileAppSnapshot app = createSnapshot();
+        final VerifyVersionResult verifyVersionResult = VerifyVersionResult.ok();
+
+        final JsonNode expected = objectMapper.readTree(objectMapper.writeValueAsBytes(new AppInitResponse(app.getFingerprints(), verifyVersionResult)));
+        final JsonNode result = objectMapper.readTree(tested.serialize(app, verifyVersionResult));
+
+        assertEquals(fieldNames(expected), fieldNames(result), "Same layout as serialized by Jackson expected");
+        assertEquals("timestamp", result.fieldNames().next());
+    }
+
+    @Test
+    void testSerialize_withoutVerifyVersionResult() throws Exception {
+        final MobileAppSnapshot app = createSnapshot();
+
+        final JsonNode result = objectMapper.readTree(tested.serialize(app, null));
+
+        assertEquals(1, result.get("fingerprints").size());
+        assertFalse(result.has("verifyVersionResult"));
+        assertTrue(result.has("timestamp"));
+    }
+
+    @Test
+    void testSerialize_rebuiltForNewSnapshot() throws Exception {
+        tested.serialize(createSnapshot(), VerifyVersionResult.ok());
+
+        final MobileAppSnapshot changed = MobileAppSnapshot.builder()
+                .name("snapshot-app")
+                .fingerprints(Collections.emptyList())
+                .versionRules(Collections.emptyList())
+                .build();
+        final JsonNode result = objectMapper.readTree(tested.serialize(changed, VerifyVersionResult.ok()));
+
+        assertEquals(0, result.get("fingerprints").size());
+    }
+
+    @Test
+    void testOnMobileAppChanged() {
+        final MobileAppSnapshot app = createSnapshot();
+        final byte[] body = tested.serialize(app, VerifyVersionResult.ok());
+
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("other-app"));
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("snapshot-app"));
+
+        final byte[] rebuilt = tested.serialize(app, VerifyVersionResult.ok());
+        assertNotSame(body, rebuilt, "Body of the changed app expected to be rebuilt");
+
+        tested.onMobileAppChanged(MobileAppChangedEvent.allApps());
+        assertNotSame(rebuilt, tested.serialize(app, VerifyVersionResult.ok()));
+    }
+
+    @Test
+    void testEtag() {
+        final MobileAppSnapshot app = createSnapshot();
+        final String etag = tested.etag(app, VerifyVersionResult.ok());
+
+        assertTrue(etag.matches("\"0-[0-9a-f]{16}\""), "Strong quoted entity tag expected: " + etag);
+        assertEquals(etag, tested.etag(createSnapshot(), VerifyVersionResult.ok()), "Same content expected to have the same tag");
+        assertNotEquals(etag, tested.etag(app, null));
+
+        final MobileAppSnapshot nextGeneration = MobileAppSnapshot.builder()
+                .name("snapshot-app")
+                .generation(1)
+                .fingerprints(app.getFingerprints())
+                .versionRules(Collections.emptyList())
+                .build();
+        assertNotEquals(etag, tested.etag(nextGeneration, VerifyVersionResult.ok()));
+    }
+
+    private static List<String> fieldNames(final JsonNode node) {
+        final List<String> result = new ArrayList<>();
+        node.fieldNames().forEachRemaining(result::add);
+        return result;
+    }
+
+    private static MobileAppSnapshot createSnapshot() {
+        final CertificateFingerprint fingerprint = new CertificateFingerprint();
+        fingerprint.setName("mobile.wultra.com");
+        fingerprint.setFingerprint("fingerprint1");
+        fingerprint.setExpires(1893456000L);
+
+        return MobileAppSnapshot.builder()
+                .name("snapshot-app")
+                .fingerprints(List.of(fingerprint))
+                .versionRules(Collections.emptyList())
+                .build();
+    }
+}
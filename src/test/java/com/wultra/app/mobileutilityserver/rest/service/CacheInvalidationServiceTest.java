@@ -0,0 +1,100 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.CacheInvalidationEntity;
+import com.wultra.app.mobileutilityserver.database.repo.CacheInvalidationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test for {@link CacheInvalidationService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@RecordApplicationEvents
+class CacheInvalidationServiceTest {
+
+    @Autowired
+    private CacheInvalidationService tested;
+
+    @Autowired
+    private CacheInvalidationRepository cacheInvalidationRepository;
+
+    @Autowired
+    private ApplicationEvents applicationEvents;
+
+    @Test
+    void testRecord() {
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("invalidation-app"));
+        tested.onLocalizedTextChanged(new LocalizedTextChangedEvent());
+
+        final List<CacheInvalidationEntity> changes = findAll();
+        assertEquals(2, changes.size());
+        assertEquals(CacheInvalidationEntity.Topic.APP, changes.get(0).getTopic());
+        assertEquals("invalidation-app", changes.get(0).getAppName());
+        assertEquals(CacheInvalidationEntity.Topic.TEXT, changes.get(1).getTopic());
+        assertNull(changes.get(1).getAppName());
+    }
+
+    @Test
+    void testPoll() {
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("own-app"));
+        save(CacheInvalidationEntity.Topic.APP, "invalidation-app", LocalDateTime.now());
+        save(CacheInvalidationEntity.Topic.APP, null, LocalDateTime.now());
+        save(CacheInvalidationEntity.Topic.TEXT, null, LocalDateTime.now());
+        save(CacheInvalidationEntity.Topic.APP, "old-app", LocalDateTime.now().minusHours(1));
+
+        tested.poll();
+        tested.poll();
+
+        assertEquals(List.of(MobileAppChangedEvent.of("invalidation-app"), MobileAppChangedEvent.allApps()),
+                applicationEvents.stream(MobileAppChangedEvent.class).toList(), "Changes of other nodes expected once");
+        assertEquals(1, applicationEvents.stream(LocalizedTextChangedEvent.class).count());
+        assertEquals(5, findAll().size(), "Received changes should not be recorded again");
+    }
+
+    private void save(final CacheInvalidationEntity.Topic topic, final String appName, final LocalDateTime timestampCreated) {
+        final CacheInvalidationEntity entity = new CacheInvalidationEntity();
+        entity.setNodeId("other-node");
+        entity.setTopic(topic);
+        entity.setAppName(appName);
+        entity.setTimestampCreated(timestampCreated);
+        cacheInvalidationRepository.save(entity);
+    }
+
+    private List<CacheInvalidationEntity> findAll() {
+        final List<CacheInvalidationEntity> result = new ArrayList<>();
+        cacheInvalidationRepository.findAll().forEach(result::add);
+        return result;
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.CertificateRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileDomainRepository;
+import com.wultra.app.mobileutilityserver.rest.model.response.CertificateCleanupResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link CertificateCleanupService}.
+ */
+@SpringBootTest(properties = "mobile-utility-server.certificate.expired-cleanup.batch-size=2")
+@ActiveProfiles("test")
+@Transactional
+@Sql
+class CertificateCleanupServiceTest {
+
+    @Autowired
+    private CertificateCleanupService tested;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private MobileDomainRepository mobileDomainRepository;
+
+    @Autowired
+    private MobileAppRepository mobileAppRepository;
+
+    @Test
+    void testDeleteExpiredCertificates() {
+        final CertificateCleanupResponse result = tested.deleteExpiredCertificates();
+        assertEquals(4, result.getCertificates());
+        assertEquals(0, result.getDomains());
+
+        final List<String> fingerprints = new ArrayList<>();
+        certificateRepository.findAll().forEach(it -> fingerprints.add(it.getFingerprint()));
+        assertEquals(List.of("fingerprint4"), fingerprints);
+        assertEquals(3, mobileDomainRepository.count());
+
+        assertEquals(0, tested.deleteExpiredCertificates().getCertificates());
+    }
+
+    @Test
+    void testDeleteExpiredCertificates_removeEmptyDomains() {
+        final CertificateCleanupResponse result = tested.deleteExpiredCertificates(true);
+        assertEquals(4, result.getCertificates());
+        assertEquals(2, result.getDomains());
+
+        final List<String> domains = new ArrayList<>();
+        mobileDomainRepository.findAll().forEach(it -> domains.add(it.getDomain()));
+        assertEquals(List.of("mobile.wultra.com"), domains);
+
+        assertEquals(0, tested.deleteExpiredCertificates(true).getDomains());
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @Sql("CertificateCleanupServiceTest.sql")
+    @Sql(scripts = "CertificateCleanupServiceTest-cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+    void testDeleteExpiredCertificates_bumpsGeneration() {
+        final long generation = mobileAppRepository.findFirstByName("cleanup-app").getGeneration();
+
+        assertEquals(4, tested.deleteExpiredCertificates().getCertificates());
+        assertEquals(generation + 2, mobileAppRepository.findFirstByName("cleanup-app").getGeneration(), "Generation should be bumped by each batch");
+
+        assertEquals(0, tested.deleteExpiredCertificates().getCertificates());
+        assertEquals(generation + 2, mobileAppRepository.findFirstByName("cleanup-app").getGeneration());
+    }
+}
@@ -0,0 +1,249 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import org.bouncycastle.asn1.x500.X500Name;
+import org.bouncycastle.cert.jcajce.JcaX509CertificateConverter;
+import org.bouncycastle.cert.jcajce.JcaX509v3CertificateBuilder;
+import org.bouncycastle.operator.jcajce.JcaContentSignerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.*;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.KeyStore;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link CertificateFetcher} against a local TLS server.
+ */
+class CertificateFetcherTest {
+
+    private static final char[] PASSWORD = "changeit".toCharArray();
+
+    private X509Certificate certificate;
+    private SSLSocketFactory socketFactory;
+    private SSLServerSocket serverSocket;
+    private ServerSocket silentServerSocket;
+    private ServerSocket tricklingServerSocket;
+    private final Queue<String> requestedServerNames = new ConcurrentLinkedQueue<>();
+    private final Queue<Socket> silentSockets = new ConcurrentLinkedQueue<>();
+
+    private CertificateFetcher tested;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        final KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("EC");
+        keyPairGenerator.initialize(256);
+        final KeyPair keyPair = keyPairGenerator.generateKeyPair();
+        final X500Name name = new X500Name("CN=mobile.wultra.com");
+        final Instant now = Instant.now();
+        certificate = new JcaX509CertificateConverter().getCertificate(new JcaX509v3CertificateBuilder(
+                name, BigInteger.ONE, Date.from(now), Date.from(now.plus(Duration.ofDays(1))), name, keyPair.getPublic())
+                .build(new JcaContentSignerBuilder("SHA256withECDSA").build(keyPair.getPrivate())));
+
+        final KeyStore keyStore = KeyStore.getInstance("PKCS12");
+        keyStore.load(null, null);
+        keyStore.setKeyEntry("server", keyPair.getPrivate(), PASSWORD, new X509Certificate[]{certificate});
+
+        final KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(keyStore, PASSWORD);
+        final TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(keyStore);
+        final SSLContext sslContext = SSLContext.getInstance("TLS");
+        sslContext.init(keyManagerFactory.getKeyManagers(), trustManagerFactory.getTrustManagers(), null);
+        socketFactory = sslContext.getSocketFactory();
+
+        serverSocket = (SSLServerSocket) sslContext.getServerSocketFactory().createServerSocket(0);
+        // Server names are recorded while processing the client hello, before the client receives the certificate
+        final SSLParameters serverParameters = serverSocket.getSSLParameters();
+        serverParameters.setSNIMatchers(List.of(new SNIMatcher(StandardConstants.SNI_HOST_NAME) {
+            @Override
+            public boolean matches(final SNIServerName serverName) {
+                requestedServerNames.add(((SNIHostName) serverName).getAsciiName());
+                return true;
+            }
+        }));
+        serverSocket.setSSLParameters(serverParameters);
+        startDaemon(() -> {
+            while (!serverSocket.isClosed()) {
+                try (final SSLSocket socket = (SSLSocket) serverSocket.accept()) {
+                    socket.startHandshake();
+                } catch (IOException e) {
+                    // closed by the test or a failed handshake
+                }
+            }
+        });
+
+        // Accepts connections but never answers the handshake
+        silentServerSocket = new ServerSocket(0);
+        startDaemon(() -> {
+            while (!silentServerSocket.isClosed()) {
+                try {
+                    silentSockets.add(silentServerSocket.accept());
+                } catch (IOException e) {
+                    // closed by the test
+                }
+            }
+        });
+
+        // Starts the handshake record but trickles its body byte by byte, each read is shorter than the timeout
+        tricklingServerSocket = new ServerSocket(0);
+        startDaemon(() -> {
+            while (!tricklingServerSocket.isClosed()) {
+                try {
+                    final Socket socket = tricklingServerSocket.accept();
+                    silentSockets.add(socket);
+                    startDaemon(() -> trickle(socket));
+                } catch (IOException e) {
+                    // closed by the test
+                }
+            }
+        });
+
+        tested = new CertificateFetcher(socketFactory, 4, Duration.ofMillis(500), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        tested.shutdown();
+        serverSocket.close();
+        silentServerSocket.close();
+        tricklingServerSocket.close();
+        for (final Socket socket : silentSockets) {
+            socket.close();
+        }
+    }
+
+    @Test
+    void testFetchAll() {
+        final List<CertificateFetcher.Result> results = tested.fetchAll(List.of(
+                new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), "mobile.wultra.com"),
+                new CertificateFetcher.Target("localhost", silentServerSocket.getLocalPort(), null),
+                new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null)));
+
+        assertEquals(3, results.size());
+        assertEquals(certificate, results.get(0).certificate());
+        assertNull(results.get(0).error());
+        assertNull(results.get(1).certificate());
+        assertEquals(CertificateFetcher.ERROR_TIMEOUT, results.get(1).error());
+        assertEquals(certificate, results.get(2).certificate());
+        assertTrue(requestedServerNames.contains("mobile.wultra.com"), "Server name override expected: " + requestedServerNames);
+    }
+
+    @Test
+    void testFetchAll_batchTimeout() {
+        final long start = System.nanoTime();
+        final List<CertificateFetcher.Result> results = tested.fetchAll(List.of(
+                new CertificateFetcher.Target("localhost", tricklingServerSocket.getLocalPort(), null),
+                new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null)));
+        final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+        assertNull(results.get(0).certificate());
+        assertEquals(CertificateFetcher.ERROR_TIMEOUT, results.get(0).error());
+        assertEquals(certificate, results.get(1).certificate());
+        assertTrue(elapsed.compareTo(Duration.ofSeconds(5)) < 0, "Batch timeout expected to bound the fetch: " + elapsed);
+    }
+
+    @Test
+    void testFetchAll_jitterDoesNotHoldPool() throws Exception {
+        final CertificateFetcher fetcher = new CertificateFetcher(socketFactory, 1, Duration.ofMillis(500), Duration.ofSeconds(2));
+        try {
+            final Thread delayed = new Thread(() -> fetcher.fetchAll(List.of(
+                    new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null),
+                    new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null),
+                    new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null),
+                    new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null)), Duration.ofSeconds(10)));
+            delayed.setDaemon(true);
+            delayed.start();
+            // Let the delayed batch be submitted first
+            Thread.sleep(200);
+
+            final long start = System.nanoTime();
+            final List<CertificateFetcher.Result> results = fetcher.fetchAll(List.of(
+                    new CertificateFetcher.Target("localhost", serverSocket.getLocalPort(), null)));
+            final Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+
+            assertEquals(certificate, results.get(0).certificate());
+            assertTrue(elapsed.compareTo(Duration.ofSeconds(2)) < 0, "Jitter of another batch expected not to hold the pool: " + elapsed);
+        } finally {
+            fetcher.shutdown();
+        }
+    }
+
+    @Test
+    void testFetchAll_connectionRefused() throws Exception {
+        final int closedPort;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        final List<CertificateFetcher.Result> results = tested.fetchAll(List.of(new CertificateFetcher.Target("localhost", closedPort, null)));
+
+        assertEquals(CertificateFetcher.ERROR_CONNECTION_REFUSED, results.get(0).error());
+    }
+
+    @Test
+    void testFetch_connectionRefused() throws Exception {
+        final int closedPort;
+        try (final ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        assertThrows(IOException.class, () -> tested.fetch(new CertificateFetcher.Target("localhost", closedPort, null)));
+    }
+
+    private static void trickle(final Socket socket) {
+        try {
+            final OutputStream out = socket.getOutputStream();
+            // Handshake record of the maximal length
+            out.write(new byte[]{0x16, 0x03, 0x03, 0x40, 0x00});
+            while (!socket.isClosed()) {
+                out.write(0x02);
+                out.flush();
+                Thread.sleep(100);
+            }
+        } catch (IOException e) {
+            // closed by the client or by the test
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void startDaemon(final Runnable runnable) {
+        final Thread thread = new Thread(runnable);
+        thread.setDaemon(true);
+        thread.start();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link CertificateFingerprintService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@Sql
+class CertificateFingerprintServiceTest {
+
+    @Autowired
+    private CertificateFingerprintService tested;
+
+    @Test
+    void testFindCertificateFingerprintsByAppName() {
+        final List<CertificateFingerprint> result = tested.findCertificateFingerprintsByAppName("fingerprint-app");
+
+        assertEquals(3, result.size(), "Expired fingerprint and fingerprints of other apps should be skipped");
+        assertEquals("api.wultra.com", result.get(0).getName(), "Fingerprints should be sorted by the domain");
+        assertEquals("fingerprint3", result.get(0).getFingerprint());
+        assertEquals(1924992000L, result.get(0).getExpires());
+        assertEquals("mobile.wultra.com", result.get(1).getName());
+        assertEquals("fingerprint1", result.get(1).getFingerprint());
+        assertEquals(1893456000L, result.get(1).getExpires());
+        assertEquals("mobile.wultra.com", result.get(2).getName());
+        assertEquals("fingerprint2", result.get(2).getFingerprint());
+    }
+
+    @Test
+    void testFindCertificateFingerprintsByAppName_appDoesNotExist() {
+        assertTrue(tested.findCertificateFingerprintsByAppName("non-existing-app").isEmpty());
+    }
+}
@@ -17,15 +17,23 @@
  */
 package com.wultra.app.mobileutilityserver.rest.service;
 
+import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
+import io.getlime.security.powerauth.crypto.lib.util.KeyConvertor;
+import io.getlime.security.powerauth.crypto.lib.util.SignatureUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.junit.jupiter.api.Test;
 
 import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
 import java.security.Security;
 import java.security.cert.CertificateFactory;
 import java.security.cert.X509Certificate;
+import java.util.Base64;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Test for {@link CryptographicOperationsService}.
@@ -76,4 +84,19 @@ class CryptographicOperationsServiceTest {
 
         assertEquals(cert, result);
     }
+
+    @Test
+    void testComputeECDSASignature_stream() throws Exception {
+        Security.addProvider(new BouncyCastleProvider());
+
+        final SignatureUtils signatureUtils = new SignatureUtils();
+        final SigningEngine signingEngine = new SigningEngine(2, false, new SimpleMeterRegistry());
+        final CryptographicOperationsService tested = new CryptographicOperationsService(new KeyGenerator(), new KeyConvertor(), signingEngine);
+        final KeyPair keyPair = tested.generateKeyPair();
+        final byte[] signatureBase = "challenge&{\"fingerprints\":[]}".repeat(500).getBytes(StandardCharsets.UTF_8);
+
+        final String result = tested.computeECDSASignature(new ByteArrayInputStream(signatureBase), keyPair.getPrivate());
+
+        assertTrue(signatureUtils.validateECDSASignature(signatureBase, Base64.getDecoder().decode(result), keyPair.getPublic()));
+    }
 }
@@ -0,0 +1,254 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.CertificateEntity;
+import com.wultra.app.mobileutilityserver.database.model.MobileAppEntity;
+import com.wultra.app.mobileutilityserver.database.repo.CertificateRepository;
+import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppVersionRepository;
+import com.wultra.app.mobileutilityserver.rest.errorhandling.AppException;
+import com.wultra.app.mobileutilityserver.rest.model.enums.Platform;
+import com.wultra.app.mobileutilityserver.rest.model.request.*;
+import com.wultra.app.mobileutilityserver.rest.model.response.ImportResponse;
+import io.getlime.security.powerauth.crypto.lib.model.exception.CryptoProviderException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.KeyPair;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link ImportService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+class ImportServiceTest {
+
+    private static final String PEM = """
+            -----BEGIN CERTIFICATE-----
+            MIIEQTCCAymgAwIBAgIBATANBgkqhkiG9w0BAQUFADCBkzEaMBgGA1UEAxMRTW9u
+            a2V5IE1hY2hpbmUgQ0ExCzAJBgNVBAYTAlVLMREwDwYDVQQIEwhTY290bGFuZDEQ
+            MA4GA1UEBxMHR2xhc2dvdzEcMBoGA1UEChMTbW9ua2V5bWFjaGluZS5jby51azEl
+            MCMGCSqGSIb3DQEJARYWY2FAbW9ua2V5bWFjaGluZS5jby51azAeFw0wNTAzMDYy
+            MzI4MjJaFw0wNjAzMDYyMzI4MjJaMIGvMQswCQYDVQQGEwJVSzERMA8GA1UECBMI
+            U2NvdGxhbmQxEDAOBgNVBAcTB0dsYXNnb3cxGzAZBgNVBAoTEk1vbmtleSBNYWNo
+            aW5lIEx0ZDElMCMGA1UECxMcT3BlbiBTb3VyY2UgRGV2ZWxvcG1lbnQgTGFiLjEU
+            MBIGA1UEAxMLTHVrZSBUYXlsb3IxITAfBgkqhkiG9w0BCQEWEmx1a2VAbW9ua2V5
+            bWFjaGluZTBcMA0GCSqGSIb3DQEBAQUAA0sAMEgCQQDItxZr07mm65ttYH7RMaVo
+            VeMCq4ptfn+GFFEk4+54OkDuh1CHlk87gEc1jx3ZpQPJRTJx31z3YkiAcP+RDzxr
+            AgMBAAGjggFIMIIBRDAJBgNVHRMEAjAAMBEGCWCGSAGG+EIBAQQEAwIHgDALBgNV
+            HQ8EBAMCBeAwHQYDVR0OBBYEFG7mW1czzw4vFcL03+wUvvvPVFY8MIHABgNVHSME
+            gbgwgbWAFKt47K8QG4qbH8exJY8WKPIXmq02oYGZpIGWMIGTMRowGAYDVQQDExFN
+            b25rZXkgTWFjaGluZSBDQTELMAkGA1UEBhMCVUsxETAPBgNVBAgTCFNjb3RsYW5k
+            MRAwDgYDVQQHEwdHbGFzZ293MRwwGgYDVQQKExNtb25rZXltYWNoaW5lLmNvLnVr
+            MSUwIwYJKoZIhvcNAQkBFhZjYUBtb25rZXltYWNoaW5lLmNvLnVrggEAMDUGCWCG
+            SAGG+EIBBAQoFiZodHRwczovL21vbmtleW1hY2hpbmUuY28udWsvY2EtY3JsLnBl
+            bTANBgkqhkiG9w0BAQUFAAOCAQEAZ961bEgm2rOq6QajRLeoljwXDnt0S9BGEWL4
+            PMU2FXDog9aaPwfmZ5fwKaSebwH4HckTp11xwe/D9uBZJQ74Uf80UL9z2eo0GaSR
+            nRB3QPZfRvop0I4oPvwViKt3puLsi9XSSJ1w9yswnIf89iONT7ZyssPg48Bojo8q
+            lcKwXuDRBWciODK/xWhvQbaegGJ1BtXcEHtvNjrUJLwSMDSr+U5oUYdMohG0h1iJ
+            R+JQc49I33o2cTc77wfEWLtVdXAyYY4GSJR6VfgvV40x85ItaNS3HHfT/aXU1x4m
+            W9YQkWlA6t0blGlC+ghTOY1JbgWnEfXMmVgg9a9cWaYQ+NQwqA==
+            -----END CERTIFICATE-----
+            """;
+
+    @Autowired
+    private ImportService tested;
+
+    @Autowired
+    private MobileAppRepository mobileAppRepository;
+
+    @Autowired
+    private CertificateRepository certificateRepository;
+
+    @Autowired
+    private MobileAppVersionRepository mobileAppVersionRepository;
+
+    @Autowired
+    private LocalizedTextRepository localizedTextRepository;
+
+    @Autowired
+    private CryptographicOperationsService cryptographicOperationsService;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private ApplicationEventPublisher applicationEventPublisher;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    @Sql("ImportServiceTest.sql")
+    void testImportApplications() throws Exception {
+        final ImportRequest request = new ImportRequest();
+        request.getApplications().add(createApp("import-app-1",
+                List.of(createCertificate("mobile.wultra.com", PEM), createCertificate("api.wultra.com", PEM)),
+                List.of(createVersion(Platform.IOS, null), createVersion(Platform.IOS, 17), createVersion(Platform.ANDROID, null))));
+        request.getApplications().add(createApp("import-app-2", List.of(createCertificate("mobile.wultra.com", PEM)), List.of()));
+        request.getTexts().add(createText("import-app.update", "en"));
+        request.getTexts().add(createText("import-app.update", "cs"));
+
+        final ImportResponse result = tested.importApplications(request);
+
+        assertEquals(2, result.getApplications());
+        assertEquals(3, result.getDomains());
+        assertEquals(3, result.getCertificates());
+        assertEquals(3, result.getVersions());
+        assertEquals(2, result.getTexts());
+
+        final MobileAppEntity app = mobileAppRepository.findFirstByName("import-app-1");
+        assertNotNull(app);
+        assertNotNull(app.getSigningPrivateKey());
+        assertNotNull(app.getSigningPublicKey());
+
+        final List<CertificateEntity> certificates = certificateRepository.findFirstByAppNameAndDomain("import-app-1", "api.wultra.com");
+        assertEquals(1, certificates.size());
+        assertEquals(1141687702L, certificates.get(0).getExpires());
+
+        assertEquals(3, mobileAppVersionRepository.findByApplicationName("import-app-1").spliterator().getExactSizeIfKnown());
+        assertTrue(localizedTextRepository.findByMessageKeyAndLocale("import-app.update", Locale.forLanguageTag("cs")).isPresent());
+    }
+
+    @Test
+    @Sql("ImportServiceTest.sql")
+    void testImportApplications_invalid() {
+        final ImportRequest request = new ImportRequest();
+        request.getApplications().add(createApp("import-app-1",
+                List.of(createCertificate("mobile.wultra.com", "invalid"), createCertificate("api.wultra.com", PEM), createCertificate("api.wultra.com", PEM)),
+                List.of(createVersion(Platform.IOS, 17), createVersion(Platform.IOS, 17))));
+        request.getApplications().add(createApp("import-app-1", List.of(), List.of()));
+        request.getApplications().add(createApp("existing-app", List.of(), List.of()));
+        request.getTexts().add(createText("existing-app.update", "en"));
+
+        final AppException result = assertThrows(AppException.class, () -> tested.importApplications(request));
+
+        assertEquals("Import validation failed: " +
+                "Invalid certificate, appName: import-app-1, domain: mobile.wultra.com; " +
+                "Duplicate certificate, appName: import-app-1, domain: api.wultra.com, fingerprint: N1j3zn+dPs7AMmcDxWizA2MpzoCT24OQielJHpvQwio=; " +
+                "Duplicate application version, applicationName=import-app-1, platform=IOS, majorOsVersion=17; " +
+                "Duplicate application: import-app-1; " +
+                "Application with name already exists: existing-app; " +
+                "Text already exists: existing-app.update, language: en", result.getMessage());
+        assertNull(mobileAppRepository.findFirstByName("import-app-1"));
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void testImportApplications_moreThanKeyPairPool() throws Exception {
+        final AtomicInteger keysTakenInTransaction = new AtomicInteger();
+        final KeyPairPool keyPairPool = new KeyPairPool(cryptographicOperationsService, 2, new SimpleMeterRegistry()) {
+            @Override
+            public KeyPair take() throws CryptoProviderException {
+                if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                    keysTakenInTransaction.incrementAndGet();
+                }
+                return super.take();
+            }
+        };
+        final ImportService importService = new ImportService(mobileAppRepository, localizedTextRepository, cryptographicOperationsService,
+                keyPairPool, entityManager, applicationEventPublisher, transactionTemplate, 100);
+
+        final ImportRequest request = new ImportRequest();
+        for (int i = 0; i < 5; i++) {
+            request.getApplications().add(createApp("bulk-app-" + i, List.of(), List.of()));
+        }
+
+        keyPairPool.start();
+        try {
+            while (keyPairPool.depth() < 2) {
+                Thread.sleep(10);
+            }
+            assertEquals(5, importService.importApplications(request).getApplications());
+        } finally {
+            keyPairPool.stop();
+        }
+
+        try {
+            assertEquals(0, keysTakenInTransaction.get(), "Keys should be taken outside of the transaction");
+            final Set<String> publicKeys = new HashSet<>();
+            for (int i = 0; i < 5; i++) {
+                final MobileAppEntity app = mobileAppRepository.findFirstByName("bulk-app-" + i);
+                assertNotNull(app);
+                publicKeys.add(app.getSigningPublicKey());
+            }
+            assertEquals(5, publicKeys.size(), "Each application should have its own key pair");
+        } finally {
+            for (int i = 0; i < 5; i++) {
+                final MobileAppEntity app = mobileAppRepository.findFirstByName("bulk-app-" + i);
+                if (app != null) {
+                    mobileAppRepository.delete(app);
+                }
+            }
+        }
+    }
+
+    private static ImportApplicationRequest createApp(final String name, final List<CreateApplicationCertificatePemRequest> certificates, final List<CreateApplicationVersionRequest> versions) {
+        final ImportApplicationRequest app = new ImportApplicationRequest();
+        app.setName(name);
+        app.setDisplayName(name);
+        app.setCertificates(certificates);
+        app.setVersions(versions);
+        return app;
+    }
+
+    private static CreateApplicationCertificatePemRequest createCertificate(final String domain, final String pem) {
+        final CreateApplicationCertificatePemRequest certificate = new CreateApplicationCertificatePemRequest();
+        certificate.setDomain(domain);
+        certificate.setPem(pem);
+        return certificate;
+    }
+
+    private static CreateApplicationVersionRequest createVersion(final Platform platform, final Integer majorOsVersion) {
+        final CreateApplicationVersionRequest version = new CreateApplicationVersionRequest();
+        version.setPlatform(platform);
+        version.setMajorOsVersion(majorOsVersion);
+        version.setSuggestedVersion("3.2.0");
+        version.setMessageKey("import-app.update");
+        return version;
+    }
+
+    private static CreateTextRequest createText(final String messageKey, final String language) {
+        final CreateTextRequest text = new CreateTextRequest();
+        text.setMessageKey(messageKey);
+        text.setLanguage(language);
+        text.setText("Update the app, please.");
+        return text;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
+import io.getlime.security.powerauth.crypto.lib.util.KeyConvertor;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link KeyPairPool}.
+ */
+class KeyPairPoolTest {
+
+    private final CryptographicOperationsService cryptographicOperationsService = new CryptographicOperationsService(new KeyGenerator(), new KeyConvertor(), null);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeAll
+    static void setUp() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testTake() throws Exception {
+        final KeyPairPool tested = new KeyPairPool(cryptographicOperationsService, 2, meterRegistry);
+        tested.start();
+        try {
+            awaitDepth(tested, 2);
+            assertEquals(2, meterRegistry.get("mobile_utility_server.key_pair_pool.depth").gauge().value());
+
+            final Set<KeyPair> keyPairs = new HashSet<>();
+            keyPairs.add(tested.take());
+            keyPairs.add(tested.take());
+            assertEquals(2, keyPairs.size(), "Distinct key pairs expected");
+            assertEquals(0, meterRegistry.get("mobile_utility_server.key_pair_pool.miss").counter().count());
+
+            awaitDepth(tested, 2);
+        } finally {
+            tested.stop();
+        }
+        assertFalse(tested.isRunning());
+    }
+
+    @Test
+    void testTake_disabled() throws Exception {
+        final KeyPairPool tested = new KeyPairPool(cryptographicOperationsService, 0, meterRegistry);
+        tested.start();
+
+        assertFalse(tested.isRunning());
+        assertNotNull(tested.take());
+        assertEquals(0, tested.depth());
+        assertEquals(1, meterRegistry.get("mobile_utility_server.key_pair_pool.miss").counter().count());
+    }
+
+    private static void awaitDepth(final KeyPairPool pool, final int depth) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 10_000;
+        while (pool.depth() < depth) {
+            assertTrue(System.currentTimeMillis() < deadline, "Pool not filled in time");
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.LocalizedTextEntity;
+import com.wultra.app.mobileutilityserver.database.repo.LocalizedTextRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Test for {@link LocalizedTextCatalog}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@Sql
+class LocalizedTextCatalogTest {
+
+    @Autowired
+    private LocalizedTextCatalog tested;
+
+    @Autowired
+    private LocalizedTextRepository localizedTextRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    void evictLocalizedTexts() {
+        tested.onLocalizedTextChanged(new LocalizedTextChangedEvent());
+    }
+
+    @Test
+    void testFind() {
+        final double hits = lookups("hit");
+
+        assertEquals("Aktualizujte aplikaci, prosím.", tested.find("catalog-app.update", Locale.forLanguageTag("cs")));
+        assertEquals("Aktualizujte aplikaci, prosím.", tested.find("catalog-app.update", Locale.forLanguageTag("cs-CZ")));
+        assertEquals(hits + 2, lookups("hit"));
+    }
+
+    @Test
+    void testFind_fallbackToEnglish() {
+        final double fallbacks = lookups("fallback");
+
+        assertEquals("Update the app, please.", tested.find("catalog-app.update", Locale.forLanguageTag("de-AT")));
+        assertEquals(fallbacks + 1, lookups("fallback"));
+    }
+
+    @Test
+    void testFind_missing() {
+        final double misses = lookups("miss");
+
+        assertNull(tested.find("catalog-app.unknown", Locale.ENGLISH));
+        assertNull(tested.find("catalog-app.czech-only", Locale.GERMAN), "No English fallback expected");
+        assertEquals(misses + 2, lookups("miss"));
+    }
+
+    @Test
+    void testFind_reloadedAfterChange() {
+        assertNull(tested.find("catalog-app.new", Locale.ENGLISH));
+
+        final LocalizedTextEntity text = new LocalizedTextEntity();
+        text.setMessageKey("catalog-app.new");
+        text.setLanguage("en");
+        text.setText("New text");
+        localizedTextRepository.save(text);
+        assertNull(tested.find("catalog-app.new", Locale.ENGLISH), "Cached catalog expected before the change event");
+
+        tested.onLocalizedTextChanged(new LocalizedTextChangedEvent());
+        assertEquals("New text", tested.find("catalog-app.new", Locale.ENGLISH));
+    }
+
+    private double lookups(final String result) {
+        return meterRegistry.get("mobile_utility_server.localized_text.lookup")
+                .tag("result", result)
+                .counter()
+                .count();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.repo.MobileAppRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Test for {@link MobileAppGenerationListener}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@Sql
+class MobileAppGenerationListenerTest {
+
+    @Autowired
+    private MobileAppGenerationListener tested;
+
+    @Autowired
+    private MobileAppRepository mobileAppRepository;
+
+    @Test
+    void testOnMobileAppChanged() {
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("generation-app"));
+
+        assertEquals(6, mobileAppRepository.findFirstByName("generation-app").getGeneration());
+        assertEquals(0, mobileAppRepository.findFirstByName("other-app").getGeneration());
+    }
+
+    @Test
+    void testOnMobileAppChanged_allApps() {
+        tested.onMobileAppChanged(MobileAppChangedEvent.allApps());
+
+        assertEquals(6, mobileAppRepository.findFirstByName("generation-app").getGeneration());
+        assertEquals(1, mobileAppRepository.findFirstByName("other-app").getGeneration());
+    }
+
+    @Test
+    void testOnLocalizedTextChanged() {
+        tested.onLocalizedTextChanged(new LocalizedTextChangedEvent());
+
+        assertEquals(6, mobileAppRepository.findFirstByName("generation-app").getGeneration());
+        assertEquals(1, mobileAppRepository.findFirstByName("other-app").getGeneration());
+    }
+}
@@ -18,6 +18,7 @@
 package com.wultra.app.mobileutilityserver.rest.service;
 
 import com.wultra.app.mobileutilityserver.rest.model.response.VerifyVersionResult;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -45,6 +46,15 @@ class MobileAppServiceTest {
     @Autowired
     private MobileAppService tested;
 
+    @Autowired
+    private LocalizedTextCatalog localizedTextCatalog;
+
+    @BeforeEach
+    void evictLocalizedTexts() {
+        // The catalog is shared by the test context, drop texts loaded before the test data were inserted
+        localizedTextCatalog.onLocalizedTextChanged(new LocalizedTextChangedEvent());
+    }
+
     @Test
     void testVerifyVersion_appDoesNotExist() {
         final VerifyVersionRequest request = VerifyVersionRequest.builder()
@@ -0,0 +1,157 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.rest.model.entity.CertificateFingerprint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link MobileAppSnapshotService}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@Transactional
+@Sql
+class MobileAppSnapshotServiceTest {
+
+    @Autowired
+    private MobileAppSnapshotService tested;
+
+    @Autowired
+    private AppInitResponseCache appInitResponseCache;
+
+    @BeforeEach
+    void evictSnapshots() {
+        tested.onMobileAppChanged(MobileAppChangedEvent.allApps());
+    }
+
+    @Test
+    void testFind() {
+        final MobileAppSnapshot result = tested.find("snapshot-app").orElseThrow();
+
+        assertEquals("snapshot-app", result.getName());
+        assertNotNull(result.getSigningPrivateKey());
+        assertEquals("public-key", result.getSigningPublicKey());
+        assertEquals(2, result.getFingerprints().size(), "Expired fingerprint should be skipped");
+        assertEquals(1893456000L, result.getFingerprintsExpire());
+        assertTrue(result.getFingerprints().stream()
+                .map(CertificateFingerprint::getName)
+                .anyMatch("mobile.wultra.com"::equals));
+        assertEquals(1, result.getVersionRules().size());
+    }
+
+    @Test
+    void testFind_appDoesNotExist() {
+        assertTrue(tested.find("non-existing-app").isEmpty());
+        assertTrue(tested.find(null).isEmpty());
+    }
+
+    @Test
+    void testFind_cachedUntilChanged() {
+        final MobileAppSnapshot first = tested.find("snapshot-app").orElseThrow();
+
+        assertSame(first, tested.find("snapshot-app").orElseThrow());
+
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("other-app"));
+        assertSame(first, tested.find("snapshot-app").orElseThrow());
+
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("snapshot-app"));
+        assertNotSame(first, tested.find("snapshot-app").orElseThrow());
+    }
+
+    @Test
+    void testFind_etagStableAcrossLoads() {
+        final MobileAppSnapshot first = tested.find("snapshot-app").orElseThrow();
+        final String etag = appInitResponseCache.etag(first, null);
+
+        tested.onMobileAppChanged(MobileAppChangedEvent.of("snapshot-app"));
+        appInitResponseCache.onMobileAppChanged(MobileAppChangedEvent.of("snapshot-app"));
+        final MobileAppSnapshot reloaded = tested.find("snapshot-app").orElseThrow();
+        assertNotSame(first, reloaded);
+        assertEquals(etag, appInitResponseCache.etag(reloaded, null));
+
+        // Same fingerprints stored in a different order
+        final MobileAppSnapshot mirror = tested.find("mirror-app").orElseThrow();
+        assertEquals(etag, appInitResponseCache.etag(mirror, null), "Entity tag should not depend on the order of rows");
+    }
+
+    @Test
+    void testFind_loadedOnceConcurrently() throws Exception {
+        final CountDownLatch loadStarted = new CountDownLatch(1);
+        final CountDownLatch loadReleased = new CountDownLatch(1);
+        final AtomicInteger loads = new AtomicInteger();
+        final MobileAppSnapshotLoader loader = new MobileAppSnapshotLoader(null, null, null, null, null) {
+            @Override
+            public Optional<MobileAppSnapshot> load(final String appName) {
+                loads.incrementAndGet();
+                loadStarted.countDown();
+                try {
+                    loadReleased.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return Optional.of(MobileAppSnapshot.builder()
+                        .name(appName)
+                        .fingerprints(Collections.emptyList())
+                        .versionRules(Collections.emptyList())
+                        .build());
+            }
+        };
+        final MobileAppSnapshotService service = new MobileAppSnapshotService(loader, Duration.ofMinutes(1));
+
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            final List<Future<Optional<MobileAppSnapshot>>> results = new ArrayList<>();
+            results.add(executor.submit(() -> service.find("concurrent-app")));
+            assertTrue(loadStarted.await(5, TimeUnit.SECONDS));
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> service.find("concurrent-app")));
+            }
+            loadReleased.countDown();
+
+            final MobileAppSnapshot first = results.get(0).get(5, TimeUnit.SECONDS).orElseThrow();
+            for (final Future<Optional<MobileAppSnapshot>> result : results) {
+                assertSame(first, result.get(5, TimeUnit.SECONDS).orElseThrow());
+            }
+            assertEquals(1, loads.get());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.SchedulerLockEntity;
+import com.wultra.app.mobileutilityserver.database.repo.SchedulerLockRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link SchedulerLockService}.
+ * <p>
+ * Not transactional, the lock is acquired and released in separate transactions.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SchedulerLockServiceTest {
+
+    @Autowired
+    private SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    private SchedulerLockService tested;
+
+    @AfterEach
+    void tearDown() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    void testRunLocked() {
+        final AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(tested.runLocked("test-job", runs::incrementAndGet));
+        assertFalse(tested.runLocked("test-job", runs::incrementAndGet), "Lock should be held at least for the minimal duration");
+        assertTrue(tested.runLocked("other-job", runs::incrementAndGet));
+        assertEquals(2, runs.get());
+
+        final SchedulerLockEntity lock = schedulerLockRepository.findById("test-job").orElseThrow();
+        assertEquals(lock.getLockedAt().plusMinutes(1), lock.getLockUntil());
+        assertNotNull(lock.getLockedBy());
+    }
+
+    @Test
+    void testRunLocked_heldWhileRunning() {
+        final SchedulerLockService other = new SchedulerLockService(schedulerLockRepository, Duration.ofMinutes(30), Duration.ZERO);
+        final AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(tested.runLocked("test-job", () ->
+                assertFalse(other.runLocked("test-job", runs::incrementAndGet), "Lock should be held while running")));
+        assertEquals(0, runs.get());
+    }
+
+    @Test
+    void testRunLocked_releasedAfterMinimalDuration() {
+        final SchedulerLockService quick = new SchedulerLockService(schedulerLockRepository, Duration.ofMinutes(30), Duration.ZERO);
+        final AtomicInteger runs = new AtomicInteger();
+
+        assertTrue(quick.runLocked("test-job", runs::incrementAndGet));
+        assertTrue(quick.runLocked("test-job", runs::incrementAndGet));
+        assertEquals(2, runs.get());
+    }
+
+    @Test
+    void testRunLocked_releasedOnFailure() {
+        final SchedulerLockService quick = new SchedulerLockService(schedulerLockRepository, Duration.ofMinutes(30), Duration.ZERO);
+
+        assertThrows(IllegalStateException.class, () -> quick.runLocked("test-job", () -> {
+            throw new IllegalStateException("Job failed");
+        }));
+        assertTrue(quick.runLocked("test-job", () -> {}));
+    }
+
+    @Test
+    void testRunLocked_expiredLockTakenOver() {
+        final LocalDateTime now = LocalDateTime.now();
+        final SchedulerLockEntity lock = new SchedulerLockEntity();
+        lock.setName("test-job");
+        lock.setLockedAt(now.minusHours(1));
+        lock.setLockUntil(now.minusMinutes(30));
+        lock.setLockedBy("crashed-node");
+        schedulerLockRepository.save(lock);
+
+        assertTrue(tested.runLocked("test-job", () -> {}));
+        assertNotEquals("crashed-node", schedulerLockRepository.findById("test-job").orElseThrow().getLockedBy());
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import io.getlime.security.powerauth.crypto.lib.generator.KeyGenerator;
+import io.getlime.security.powerauth.crypto.lib.util.SignatureUtils;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.Security;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link SigningEngine}.
+ */
+class SigningEngineTest {
+
+    @BeforeAll
+    static void registerProvider() {
+        Security.addProvider(new BouncyCastleProvider());
+    }
+
+    @Test
+    void testSign_concurrently() throws Exception {
+        final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        final SigningEngine tested = new SigningEngine(2, false, meterRegistry);
+        final KeyPair keyPair = new KeyGenerator().generateKeyPair();
+        final SignatureUtils signatureUtils = new SignatureUtils();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 64; i++) {
+                final byte[] signatureBase = ("challenge&" + i).getBytes(StandardCharsets.UTF_8);
+                results.add(executor.submit(() ->
+                        signatureUtils.validateECDSASignature(signatureBase, tested.sign(signatureBase, keyPair.getPrivate()), keyPair.getPublic())));
+            }
+            for (final Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(64, meterRegistry.get("mobile_utility_server.signature.sign").timer().count());
+        assertEquals(0, meterRegistry.get("mobile_utility_server.signature.waiting").gauge().value());
+    }
+
+    @Test
+    void testSign_deterministic() throws Exception {
+        final SigningEngine tested = new SigningEngine(1, true, new SimpleMeterRegistry());
+        final KeyPair keyPair = new KeyGenerator().generateKeyPair();
+        final byte[] signatureBase = "challenge&{\"fingerprints\":[]}".getBytes(StandardCharsets.UTF_8);
+
+        final byte[] first = tested.sign(signatureBase, keyPair.getPrivate());
+        final byte[] second = tested.sign(new ByteArrayInputStream(signatureBase), keyPair.getPrivate());
+
+        assertArrayEquals(first, second);
+        assertTrue(new SignatureUtils().validateECDSASignature(signatureBase, first, keyPair.getPublic()));
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Wultra Mobile Utility Server
+ * Copyright (C) 2023  Wultra s.r.o.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <https://www.gnu.org/licenses/>.
+ */
+
+package com.wultra.app.mobileutilityserver.rest.service;
+
+import com.wultra.app.mobileutilityserver.database.model.MobileAppVersionEntity;
+import org.apache.maven.artifact.versioning.DefaultArtifactVersion;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Test for {@link VersionRuleMatcher}.
+ */
+class VersionRuleMatcherTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "3.2.1, 3.2.1",
+            "3.2.1, 3.2.0",
+            "3.2.1, 3.10.0",
+            "3.2, 3.2.0",
+            "3, 3.0.1",
+            "3.2.1, 3.2.1-SNAPSHOT",
+            "3.2.1, 3.2.1-beta.1",
+            "3.2.1, 03.2.1",
+            "999999.0.0, 1000000.0.0",
+            "3.2.1, 3.2.1.4",
+            "3.2.1, abc"
+    })
+    void testIsNewerThan_sameAsDefaultArtifactVersion(final String first, final String second) {
+        assertIsNewerThan(first, second);
+        assertIsNewerThan(second, first);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"14", "14.5", "14.5.1", "14.5.1-beta", "014.5.1", "0", "abc", "1.2.3.4"})
+    void testMajorVersion_sameAsDefaultArtifactVersion(final String version) {
+        assertEquals(new DefaultArtifactVersion(version).getMajorVersion(), VersionRuleMatcher.majorVersion(version));
+    }
+
+    @Test
+    void testPack() {
+        assertNotEquals(VersionRuleMatcher.NOT_PACKED, VersionRuleMatcher.pack("3.2.1"));
+        assertEquals(VersionRuleMatcher.pack("3.2.0"), VersionRuleMatcher.pack("3.2"));
+        assertEquals(VersionRuleMatcher.NOT_PACKED, VersionRuleMatcher.pack("3.2.1-SNAPSHOT"));
+        assertEquals(VersionRuleMatcher.NOT_PACKED, VersionRuleMatcher.pack("3..1"));
+        assertEquals(VersionRuleMatcher.NOT_PACKED, VersionRuleMatcher.pack("3.2."));
+        assertEquals(VersionRuleMatcher.NOT_PACKED, VersionRuleMatcher.pack(""));
+    }
+
+    @Test
+    void testFind() {
+        final MobileAppSnapshot.VersionRule exact = rule(MobileAppVersionEntity.Platform.IOS, 17, "3.0.0");
+        final MobileAppSnapshot.VersionRule fallback = rule(MobileAppVersionEntity.Platform.IOS, null, "2.0.0");
+        final VersionRuleMatcher tested = VersionRuleMatcher.compile("app", List.of(
+                exact,
+                fallback,
+                rule(MobileAppVersionEntity.Platform.IOS, 16, "1.0.0"),
+                rule(MobileAppVersionEntity.Platform.IOS, 16, "1.1.0")));
+
+        assertSame(exact, tested.find(MobileAppVersionEntity.Platform.IOS, 17).source());
+        assertSame(fallback, tested.find(MobileAppVersionEntity.Platform.IOS, 18).source());
+        assertSame(fallback, tested.find(MobileAppVersionEntity.Platform.IOS, 16).source(), "Ambiguous exact rules should fall back");
+        assertNull(tested.find(MobileAppVersionEntity.Platform.ANDROID, 17));
+    }
+
+    @Test
+    void testFind_largeMajorOsVersion() {
+        final MobileAppSnapshot.VersionRule large = rule(MobileAppVersionEntity.Platform.ANDROID, Integer.MAX_VALUE, "3.0.0");
+        final MobileAppSnapshot.VersionRule negative = rule(MobileAppVersionEntity.Platform.ANDROID, Integer.MIN_VALUE, "1.0.0");
+        final MobileAppSnapshot.VersionRule exact = rule(MobileAppVersionEntity.Platform.ANDROID, 34, "2.0.0");
+        final VersionRuleMatcher tested = VersionRuleMatcher.compile("app", List.of(large, negative, exact));
+
+        assertSame(large, tested.find(MobileAppVersionEntity.Platform.ANDROID, Integer.MAX_VALUE).source());
+        assertSame(negative, tested.find(MobileAppVersionEntity.Platform.ANDROID, Integer.MIN_VALUE).source());
+        assertSame(exact, tested.find(MobileAppVersionEntity.Platform.ANDROID, 34).source());
+        assertNull(tested.find(MobileAppVersionEntity.Platform.ANDROID, 35));
+    }
+
+    @Test
+    void testFind_ambiguousFallback() {
+        final VersionRuleMatcher tested = VersionRuleMatcher.compile("app", List.of(
+                rule(MobileAppVersionEntity.Platform.IOS, null, "1.0.0"),
+                rule(MobileAppVersionEntity.Platform.IOS, null, "1.1.0")));
+
+        assertNull(tested.find(MobileAppVersionEntity.Platform.IOS, 17));
+    }
+
+    private static void assertIsNewerThan(final String first, final String second) {
+        final MobileAppSnapshot.VersionRule versionRule = rule(MobileAppVersionEntity.Platform.IOS, null, first);
+        final VersionRuleMatcher.CompiledVersion compiled = VersionRuleMatcher.compile("app", List.of(versionRule))
+                .find(MobileAppVersionEntity.Platform.IOS, 0)
+                .suggestedVersion();
+
+        final boolean expected = new DefaultArtifactVersion(first).compareTo(new DefaultArtifactVersion(second)) > 0;
+        assertEquals(expected, compiled.isNewerThan(second, VersionRuleMatcher.pack(second)), first + " > " + second);
+    }
+
+    private static MobileAppSnapshot.VersionRule rule(final MobileAppVersionEntity.Platform platform, final Integer majorOsVersion, final String suggestedVersion) {
+        return MobileAppSnapshot.VersionRule.builder()
+                .platform(platform)
+                .majorOsVersion(majorOsVersion)
+                .suggestedVersion(suggestedVersion)
+                .build();
+    }
+}
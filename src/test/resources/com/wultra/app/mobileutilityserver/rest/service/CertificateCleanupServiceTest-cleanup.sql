@@ -0,0 +1,4 @@
+delete from mus_certificate where mobile_domain_id in (select id from mus_mobile_domain where app_id = 1);
+delete from mus_mobile_domain where app_id = 1;
+delete from mus_mobile_app where id = 1;
+delete from mus_cache_invalidation;
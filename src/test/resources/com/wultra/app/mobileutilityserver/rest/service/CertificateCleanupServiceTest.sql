@@ -0,0 +1,14 @@
+insert into mus_mobile_app(id, name, sign_private_key, sign_public_key)
+values (1, 'cleanup-app', 'private-key', 'public-key');
+
+insert into mus_mobile_domain(id, app_id, domain)
+values (1, 1, 'mobile.wultra.com'),
+       (2, 1, 'expired.wultra.com'),
+       (3, 1, 'empty.wultra.com');
+
+insert into mus_certificate(id, pem, fingerprint, expires, mobile_domain_id)
+values (1, 'pem1', 'fingerprint1', 1000, 1),
+       (2, 'pem2', 'fingerprint2', 2000, 1),
+       (3, 'pem3', 'fingerprint3', 3000, 1),
+       (4, 'pem4', 'fingerprint4', 1893456000, 1),
+       (5, 'pem5', 'fingerprint5', 4000, 2);
@@ -0,0 +1,15 @@
+insert into mus_mobile_app(id, name, sign_private_key, sign_public_key)
+values (1, 'fingerprint-app', 'private-key', 'public-key'),
+       (2, 'other-app', 'private-key', 'public-key');
+
+insert into mus_mobile_domain(id, app_id, domain)
+values (1, 1, 'mobile.wultra.com'),
+       (2, 1, 'api.wultra.com'),
+       (3, 2, 'other.wultra.com');
+
+insert into mus_certificate(id, pem, fingerprint, expires, mobile_domain_id)
+values (1, 'pem1', 'fingerprint1', 1893456000, 1),
+       (2, 'pem2', 'fingerprint2', 1893456000, 1),
+       (3, 'pem3', 'fingerprint3', 1924992000, 2),
+       (4, 'pem4', 'fingerprint-expired', 1000, 2),
+       (5, 'pem5', 'fingerprint-other', 1893456000, 3);
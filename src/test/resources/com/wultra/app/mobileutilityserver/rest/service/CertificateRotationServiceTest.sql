@@ -0,0 +1,11 @@
+insert into mus_mobile_app(id, name, sign_private_key, sign_public_key)
+values (1, 'rotation-app', 'private-key', 'public-key');
+
+insert into mus_mobile_domain(id, app_id, domain)
+values (1, 1, 'mobile.wultra.com'),
+       (2, 1, 'api.wultra.com'),
+       (3, 1, 'down.wultra.com');
+
+insert into mus_certificate(id, pem, fingerprint, expires, mobile_domain_id)
+values (1001, 'pem1', 'fingerprint1', 1893456000, 1),
+       (1002, 'pem2', 'N1j3zn+dPs7AMmcDxWizA2MpzoCT24OQielJHpvQwio=', 1893456000, 2);
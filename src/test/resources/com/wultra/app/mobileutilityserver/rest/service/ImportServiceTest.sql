@@ -0,0 +1,5 @@
+insert into mus_mobile_app(id, name)
+values (nextval('mus_mobile_app_seq'), 'existing-app');
+
+insert into mus_localized_text(message_key, language, text)
+values ('existing-app.update', 'en', 'Update the app, please.');
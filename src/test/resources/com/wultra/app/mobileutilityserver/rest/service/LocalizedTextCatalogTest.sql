@@ -0,0 +1,4 @@
+insert into mus_localized_text(message_key, text, language)
+values ('catalog-app.update', 'Update the app, please.', 'en'),
+       ('catalog-app.update', 'Aktualizujte aplikaci, prosím.', 'cs'),
+       ('catalog-app.czech-only', 'Pouze česky.', 'cs');
@@ -0,0 +1,5 @@
+insert into mus_mobile_app(id, name, generation)
+values (1, 'generation-app', 5);
+
+insert into mus_mobile_app(id, name)
+values (2, 'other-app');
@@ -0,0 +1,19 @@
+insert into mus_mobile_app(id, name, sign_private_key, sign_public_key)
+values (1, 'snapshot-app', 'AQIDBAUGBwgJCgsMDQ4PEBESExQVFhcYGRobHB0eHyA=', 'public-key'),
+       (2, 'mirror-app', 'AQIDBAUGBwgJCgsMDQ4PEBESExQVFhcYGRobHB0eHyA=', 'public-key');
+
+insert into mus_mobile_domain(id, app_id, domain)
+values (1, 1, 'mobile.wultra.com'),
+       (2, 1, 'api.wultra.com'),
+       (3, 2, 'api.wultra.com'),
+       (4, 2, 'mobile.wultra.com');
+
+insert into mus_certificate(id, pem, fingerprint, expires, mobile_domain_id)
+values (1, 'pem1', 'fingerprint1', 1893456000, 1),
+       (2, 'pem2', 'fingerprint2', 1893456000, 2),
+       (3, 'pem3', 'fingerprint-expired', 1000, 2),
+       (4, 'pem2', 'fingerprint2', 1893456000, 3),
+       (5, 'pem1', 'fingerprint1', 1893456000, 4);
+
+insert into mus_mobile_app_version(id, app_id, platform, suggested_version, required_version, major_os_version, message_key)
+values (nextval('mus_mobile_app_version_seq'), 1, 'IOS', '3.3.0', null, null, 'snapshot-app.update');
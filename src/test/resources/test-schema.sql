@@ -0,0 +1,2 @@
+-- Adjust the schema generated by Hibernate to the Liquibase changelog where the mapping is not enough
+ALTER TABLE mus_certificate ALTER COLUMN pem CLOB;